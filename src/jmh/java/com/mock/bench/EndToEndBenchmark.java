@@ -0,0 +1,186 @@
+package com.mock.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mock.MockPlatformApplication;
+import com.mock.dto.LoadTestRequest;
+import com.mock.dto.LoadTestTarget;
+import com.mock.model.LatencyProfile;
+import com.mock.model.MockRule;
+import com.mock.model.MockServiceConfig;
+import com.mock.service.LoadGenerator;
+import com.mock.service.LoadTestRun;
+import com.mock.service.MockConfigService;
+import com.mock.service.SettingsService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Headless end-to-end throughput benchmark: boots the platform, starts a few mock services on
+ * local ports and drives them with the built-in {@link LoadGenerator}. Services and captures live
+ * in a temporary directory, so the user's persisted services are neither started nor modified.
+ * <p>
+ * Runs through the jmh profile and accepts the same arguments as JMH's runner where they make
+ * sense: {@code -rff <file>} for the JSON results and a regex selecting scenarios by name.
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.main=com.mock.bench.EndToEndBenchmark -Djmh.result=target/e2e-result.json
+ * </pre>
+ */
+public final class EndToEndBenchmark {
+
+    private static final int DURATION_SECONDS = 10;
+    private static final int WARMUP_SECONDS = 3;
+
+    private EndToEndBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String resultFile = null;
+        Pattern include = Pattern.compile(".*");
+        for (int i = 0; i < args.length; i++) {
+            if ("-rff".equals(args[i]) && i + 1 < args.length) {
+                resultFile = args[++i];
+            } else if ("-rf".equals(args[i])) {
+                i++; // Always JSON
+            } else if (!args[i].startsWith("-")) {
+                include = Pattern.compile(args[i]);
+            }
+        }
+
+        Path workDirectory = Files.createTempDirectory("mock-e2e");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MockPlatformApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN",
+                        "mock.store.directory=" + workDirectory.resolve("store"))
+                .run();
+        MockConfigService configService = context.getBean(MockConfigService.class);
+        List<String> serviceIds = new ArrayList<>();
+        try {
+            context.getBean(SettingsService.class).getSettings()
+                    .setCaptureDirectory(workDirectory.resolve("captures").toString());
+            LoadGenerator loadGenerator = context.getBean(LoadGenerator.class);
+
+            String staticId = startService(configService, serviceIds, "e2e-static", rule("GET", "/api/items",
+                    "{\"items\": [{\"id\": 1, \"name\": \"alpha\"}, {\"id\": 2, \"name\": \"beta\"}]}", null));
+            String templateId = startService(configService, serviceIds, "e2e-template", rule("GET", "/api/users/{id}",
+                    "{\"id\": \"#{#req.getRequestURI().substring(11)}\", \"tier\": \"#{#req.getParameter('tier')}\"}",
+                    null));
+            LatencyProfile slow = new LatencyProfile();
+            slow.setType("uniform");
+            slow.setMinMs(5);
+            slow.setMaxMs(15);
+            String delayedId = startService(configService, serviceIds, "e2e-delayed", rule("GET", "/api/slow",
+                    "{\"ok\": true}", slow));
+
+            List<Scenario> scenarios = List.of(
+                    new Scenario("static-closed-64", request(staticId, "closed", 64, 0, target("/api/items"))),
+                    new Scenario("static-open-5000", request(staticId, "open", 256, 5000, target("/api/items"))),
+                    new Scenario("template-closed-64", request(templateId, "closed", 64, 0,
+                            target("/api/users/42?tier=gold"))),
+                    new Scenario("delayed-closed-256", request(delayedId, "closed", 256, 0, target("/api/slow"))),
+                    new Scenario("delayed-open-2000", request(delayedId, "open", 512, 2000, target("/api/slow"))));
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                if (!include.matcher(scenario.name).find()) {
+                    continue;
+                }
+                Map<String, Object> report = run(loadGenerator, scenario);
+                results.add(report);
+                print(scenario.name, report);
+            }
+
+            if (resultFile != null) {
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(resultFile), results);
+                System.out.println("Results written to " + resultFile);
+            }
+        } finally {
+            for (String id : serviceIds) {
+                configService.deleteService(id);
+            }
+            context.close();
+            FileSystemUtils.deleteRecursively(workDirectory);
+        }
+    }
+
+    private static Map<String, Object> run(LoadGenerator loadGenerator, Scenario scenario)
+            throws InterruptedException {
+        LoadTestRun run = loadGenerator.start(scenario.request);
+        while ("pending".equals(run.getState()) || "running".equals(run.getState())) {
+            Thread.sleep(500);
+        }
+        Map<String, Object> report = run.report();
+        report.put("scenario", scenario.name);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(String name, Map<String, Object> report) {
+        Map<String, Object> latency = (Map<String, Object>) report.get("latency");
+        Map<String, Object> corrected = (Map<String, Object>) report.get("corrected");
+        System.out.printf("%-20s %10.0f req/s  errors %-6s p50 %7.2f ms  p99 %7.2f ms  corrected p99 %7.2f ms%n",
+                name, (Double) report.get("throughput"), report.get("errors"), latency.get("p50Ms"),
+                latency.get("p99Ms"), corrected.get("p99Ms"));
+    }
+
+    private static String startService(MockConfigService configService, List<String> serviceIds, String name,
+            MockRule rule) throws IOException {
+        MockServiceConfig config = new MockServiceConfig();
+        config.setServiceName(name);
+        config.setPort(freePort());
+        config.setContextPath("/");
+        config.setRules(new ArrayList<>(List.of(rule)));
+        configService.createService(config);
+        serviceIds.add(config.getId());
+        configService.startService(config.getId());
+        return config.getId();
+    }
+
+    private static MockRule rule(String method, String urlPattern, String body, LatencyProfile latency) {
+        MockRule rule = new MockRule();
+        rule.setMethod(method);
+        rule.setUrlPattern(urlPattern);
+        rule.setResponseBody(body);
+        rule.setResponseHeaders(Map.of("Content-Type", "application/json"));
+        rule.setLatency(latency);
+        return rule;
+    }
+
+    private static LoadTestRequest request(String serviceId, String model, int concurrency, int rate,
+            LoadTestTarget target) {
+        LoadTestRequest request = new LoadTestRequest();
+        request.setServiceId(serviceId);
+        request.setModel(model);
+        request.setConcurrency(concurrency);
+        request.setRatePerSecond(rate);
+        request.setDurationSeconds(DURATION_SECONDS);
+        request.setWarmupSeconds(WARMUP_SECONDS);
+        request.setTargets(List.of(target));
+        return request;
+    }
+
+    private static LoadTestTarget target(String path) {
+        LoadTestTarget target = new LoadTestTarget();
+        target.setPath(path);
+        return target;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Scenario(String name, LoadTestRequest request) {
+    }
+}
@@ -0,0 +1,195 @@
+package com.mock.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.model.MockRule;
+import com.mock.model.MockServiceConfig;
+import com.mock.service.MockDataGenerator;
+import com.mock.service.MockDataGeneratorBenchmark;
+import com.mock.service.SettingsService;
+import com.mock.service.ValuePools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link MockRequestDispatcher#dispatch} round trips on mock servlet objects: a static
+ * response, a SpEL-templated one, a rule picked by body regex, generated responses (fresh per
+ * request and round-robin over pre-generated variants), resource-mode reads and writes against a
+ * collection of {@code RESOURCE_ITEMS} items and a 404, behind {@code ruleCount} filler rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatcherBenchmark {
+
+    private static final int RESOURCE_ITEMS = 10_000;
+
+    @Param({ "10", "500" })
+    private int ruleCount;
+
+    private DelayScheduler delayScheduler;
+    private ForwardingProxy forwardingProxy;
+    private CaptureStore captureStore;
+    private MockRequestDispatcher dispatcher;
+    private RuleSnapshot snapshot;
+    private byte[] orderBody;
+    private byte[] bookBody;
+
+    @Setup
+    public void setup() {
+        SettingsService settings = new SettingsService();
+        delayScheduler = new DelayScheduler();
+        forwardingProxy = new ForwardingProxy(settings);
+        captureStore = new CaptureStore(settings);
+        MockDataGenerator generator = new MockDataGenerator(new ValuePools(1024, false));
+        ObjectMapper objectMapper = new ObjectMapper();
+        dispatcher = new MockRequestDispatcher(delayScheduler, forwardingProxy, captureStore,
+                new MetricsRegistry(), new RequestJournals(settings), settings, generator,
+                new ResourceHandler(new ResourceStores(objectMapper), objectMapper));
+
+        List<MockRule> rules = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(rule("GET", "/api/filler" + i + "/{id}", null, "{\"filler\": " + i + "}"));
+        }
+        rules.add(rule("GET", "/api/static", null, "{\"status\": \"ok\", \"items\": [1, 2, 3]}"));
+        rules.add(rule("GET", "/api/template", null,
+                "{\"user\": \"#{#req.getParameter('name')}\", \"vip\": #{#req.getParameter('tier') == 'gold'}}"));
+        rules.add(rule("POST", "/api/orders", "\"type\"\\s*:\\s*\"express\"", "{\"queued\": false}"));
+        rules.add(rule("POST", "/api/orders", null, "{\"queued\": true}"));
+        rules.add(generated("/api/generated", 0));
+        rules.add(generated("/api/variants", 16));
+        MockRule books = rule(null, "/api/books/**", null, null);
+        books.setMode("resource");
+        books.setResourceIndexes(List.of("author"));
+        books.setResourceMaxItems(RESOURCE_ITEMS);
+        rules.add(books);
+
+        MockServiceConfig config = new MockServiceConfig();
+        config.setId("bench");
+        config.setServiceName("bench");
+        config.setRules(rules);
+        snapshot = new RuleCompiler(generator).compile(config);
+
+        orderBody = "{\"id\": 42, \"items\": [\"a\", \"b\"], \"type\": \"express\"}".getBytes(StandardCharsets.UTF_8);
+        bookBody = "{\"title\": \"Benchmarking\", \"author\": \"author-7\"}".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < RESOURCE_ITEMS; i++) {
+            MockHttpServletRequest req = new MockHttpServletRequest("PUT", "/api/books/" + i);
+            req.setContent(("{\"title\": \"Book " + i + "\", \"author\": \"author-" + (i % 100) + "\"}")
+                    .getBytes(StandardCharsets.UTF_8));
+            try {
+                dispatch(req);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delayScheduler.shutdown();
+        forwardingProxy.shutdown();
+        captureStore.shutdown();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse staticResponse() throws IOException {
+        return dispatch(new MockHttpServletRequest("GET", "/api/static"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse templatedResponse() throws IOException {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/template");
+        req.setParameter("name", "alice");
+        req.setParameter("tier", "gold");
+        return dispatch(req);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse bodyMatchedResponse() throws IOException {
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/orders");
+        req.setContentType("application/json");
+        req.setContent(orderBody);
+        return dispatch(req);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse generatedResponse() throws IOException {
+        return dispatch(new MockHttpServletRequest("GET", "/api/generated"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse generatedVariant() throws IOException {
+        return dispatch(new MockHttpServletRequest("GET", "/api/variants"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse resourceGet() throws IOException {
+        return dispatch(new MockHttpServletRequest("GET", "/api/books/4242"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse resourceIndexedQuery() throws IOException {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/books");
+        req.setParameter("author", "author-7");
+        req.setParameter("limit", "20");
+        return dispatch(req);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse resourcePost() throws IOException {
+        // The collection is capped, so every create also evicts the oldest item
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/books");
+        req.setContent(bookBody);
+        return dispatch(req);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse notFound() throws IOException {
+        return dispatch(new MockHttpServletRequest("GET", "/api/missing/1"));
+    }
+
+    private MockHttpServletResponse dispatch(MockHttpServletRequest req) throws IOException {
+        MockHttpServletResponse resp = new MockHttpServletResponse();
+        dispatcher.dispatch(req, resp, snapshot);
+        return resp;
+    }
+
+    private static MockRule rule(String method, String urlPattern, String bodyMatch, String body) {
+        MockRule rule = new MockRule();
+        rule.setMethod(method);
+        rule.setUrlPattern(urlPattern);
+        rule.setBodyMatch(bodyMatch);
+        rule.setResponseBody(body);
+        rule.setResponseHeaders(Map.of("Content-Type", "application/json"));
+        return rule;
+    }
+
+    private static MockRule generated(String urlPattern, int variants) {
+        MockRule rule = rule("GET", urlPattern, null, null);
+        rule.setMode("generate");
+        rule.setResponseSchema(MockDataGeneratorBenchmark.nestedSchema(2));
+        rule.setGenerateVariants(variants);
+        return rule;
+    }
+}
@@ -0,0 +1,124 @@
+package com.mock.core;
+
+import com.mock.model.MockRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linear AntPathMatcher scan vs. {@link RouteIndex} lookup, matching the last rule of the service.
+ * {@code shape} picks the URL patterns: literal paths, single-segment variables, {@code **} tails,
+ * {@code *} tails requested with a trailing slash, or the mix a Swagger import typically produces.
+ * Setup fails if the index picks a different rule than the scan for any rule's path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteIndexBenchmark {
+
+    private static final String[] METHODS = { "GET", "POST", "PUT", "DELETE" };
+
+    @Param({ "10", "100", "1000" })
+    private int ruleCount;
+
+    @Param({ "mixed", "literal", "variable", "deep", "trailing" })
+    private String shape;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private List<MockRule> rules;
+    private List<CompiledRule> compiled;
+    private RouteIndex index;
+    private String method;
+    private String path;
+
+    @Setup
+    public void setup() {
+        rules = new ArrayList<>(ruleCount);
+        compiled = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            MockRule rule = new MockRule();
+            rule.setId("r" + i);
+            rule.setMethod(METHODS[i % METHODS.length]);
+            rule.setUrlPattern(pattern(i));
+            rules.add(rule);
+            compiled.add(new CompiledRule(rule, null, null, null));
+        }
+        index = RouteIndex.build(compiled);
+
+        for (int i = 0; i < ruleCount; i++) {
+            select(i);
+            MockRule expected = linearScan();
+            MockRule actual = routeIndex();
+            if (expected != actual) {
+                throw new IllegalStateException("Index picked " + (actual != null ? actual.getId() : "nothing")
+                        + " instead of " + (expected != null ? expected.getId() : "nothing")
+                        + " for " + method + " " + path);
+            }
+        }
+        select(ruleCount - 1);
+    }
+
+    private void select(int i) {
+        method = METHODS[i % METHODS.length];
+        path = "/api/v1/resource" + i + switch (kind(i)) {
+            case 0 -> "";
+            case 3 -> "/";
+            default -> "/42";
+        };
+    }
+
+    private String pattern(int i) {
+        return switch (kind(i)) {
+            case 0 -> "/api/v1/resource" + i;
+            case 1 -> "/api/v1/resource" + i + "/{id}";
+            case 3 -> "/api/v1/resource" + i + "/*";
+            default -> "/api/v1/resource" + i + "/**";
+        };
+    }
+
+    private int kind(int i) {
+        return switch (shape) {
+            case "literal" -> 0;
+            case "variable" -> 1;
+            case "deep" -> 2;
+            case "trailing" -> 3;
+            default -> i % 4;
+        };
+    }
+
+    @Benchmark
+    public MockRule linearScan() {
+        for (MockRule rule : rules) {
+            if (rule.getMethod().equalsIgnoreCase(method) && pathMatcher.match(rule.getUrlPattern(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public MockRule routeIndex() {
+        for (CompiledRule candidate : index.candidates(method, path)) {
+            if (pathMatcher.match(candidate.getRule().getUrlPattern(), path)) {
+                return candidate.getRule();
+            }
+        }
+        return null;
+    }
+}
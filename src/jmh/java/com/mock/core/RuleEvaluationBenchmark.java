@@ -0,0 +1,101 @@
+package com.mock.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The two per-request rule evaluations in isolation: SpEL response templates (interpreted vs.
+ * MIXED compilation, as used by {@link RuleCompiler}) and {@code bodyMatch} regexes over
+ * request bodies of {@code bodySize} bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+
+    private static final String TEMPLATE = "{\"user\": \"#{#req.getParameter('name')}\", "
+            + "\"vip\": #{#req.getParameter('tier') == 'gold'}, \"echo\": \"#{#body}\"}";
+
+    @Param({ "256", "16384" })
+    private int bodySize;
+
+    private Expression interpreted;
+    private Expression compiled;
+    private MockHttpServletRequest request;
+    private String body;
+    private Pattern literalPattern;
+    private Pattern fieldPattern;
+
+    @Setup
+    public void setup() {
+        TemplateParserContext templateContext = new TemplateParserContext();
+        interpreted = new SpelExpressionParser().parseExpression(TEMPLATE, templateContext);
+        compiled = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED,
+                getClass().getClassLoader())).parseExpression(TEMPLATE, templateContext);
+
+        request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setParameter("name", "alice");
+        request.setParameter("tier", "gold");
+
+        // Filler first, so the interesting field sits at the end like in large payloads
+        StringBuilder json = new StringBuilder("{\"items\": [");
+        while (json.length() < bodySize - 40) {
+            json.append("{\"sku\": \"A-1\", \"qty\": 2},");
+        }
+        json.append("{}], \"type\": \"express\"}");
+        body = json.toString();
+
+        literalPattern = Pattern.compile("express");
+        fieldPattern = Pattern.compile("\"type\"\\s*:\\s*\"express\"");
+    }
+
+    @Benchmark
+    public String templateInterpreted() {
+        return interpreted.getValue(context(), String.class);
+    }
+
+    @Benchmark
+    public String templateCompiled() {
+        return compiled.getValue(context(), String.class);
+    }
+
+    @Benchmark
+    public boolean bodyRegexLiteral() {
+        return literalPattern.matcher(body).find();
+    }
+
+    @Benchmark
+    public boolean bodyRegexField() {
+        return fieldPattern.matcher(body).find();
+    }
+
+    private EvaluationContext context() {
+        EvaluationContext context = new StandardEvaluationContext();
+        context.setVariable("req", request);
+        context.setVariable("body", "short");
+        return context;
+    }
+}
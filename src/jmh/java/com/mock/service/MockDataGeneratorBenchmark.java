@@ -0,0 +1,95 @@
+package com.mock.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MockDataGenerator#generateFromSchema} on a small flat schema and on a deeply nested one
+ * (objects of arrays of objects, {@code depth} levels): {@code generate} reuses the cached plan,
+ * {@code generateSeeded} is the reproducible variant, {@code stream} writes JSON tokens instead of
+ * building maps and {@code compileAndGenerate} pays for compiling the schema on every call. Run with {@code -t} to check that generation scales across
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MockDataGeneratorBenchmark {
+
+    @Param({ "small", "nested" })
+    private String schemaShape;
+
+    @Param({ "4" })
+    private int depth;
+
+    private final MockDataGenerator generator = new MockDataGenerator(new ValuePools(1024, false));
+    private Map<String, Object> schema;
+
+    @Setup
+    public void setup() {
+        schema = "small".equals(schemaShape) ? smallSchema() : nestedSchema(depth);
+    }
+
+    @Benchmark
+    public Object generate() {
+        return generator.generateFromSchema(schema);
+    }
+
+    @Benchmark
+    public Object generateSeeded() {
+        return generator.generateFromSchema(schema, 42L);
+    }
+
+    @Benchmark
+    public void stream() throws IOException {
+        generator.writeJson(generator.plan(schema), null, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Object compileAndGenerate() {
+        return generator.compile(schema).generate();
+    }
+
+    public static Map<String, Object> smallSchema() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("id", Map.of("type", "string"));
+        properties.put("firstName", Map.of("type", "string"));
+        properties.put("email", Map.of("type", "string", "format", "email"));
+        properties.put("age", Map.of("type", "integer"));
+        properties.put("status", Map.of("type", "string", "enum", List.of("active", "inactive")));
+        properties.put("createdAt", Map.of("type", "string", "format", "date-time"));
+        return Map.of("type", "object", "properties", properties);
+    }
+
+    public static Map<String, Object> nestedSchema(int depth) {
+        Map<String, Object> node = smallSchema();
+        for (int level = 0; level < depth; level++) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("id", Map.of("type", "string", "format", "uuid"));
+            properties.put("title", Map.of("type", "string"));
+            properties.put("price", Map.of("type", "number"));
+            properties.put("children", Map.of("type", "array", "items", node));
+            properties.put("owner", smallSchema());
+            node = Map.of("type", "object", "properties", properties);
+        }
+        return node;
+    }
+}
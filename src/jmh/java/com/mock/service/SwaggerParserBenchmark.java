@@ -0,0 +1,135 @@
+package com.mock.service;
+
+import com.mock.dto.SwaggerEndpoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SwaggerParser#parseSwaggerUrl} on a generated OpenAPI document with {@code pathCount}
+ * paths sharing {@code $ref} component schemas (one of them self-referencing), read from a local
+ * file: {@code parse} with a fresh parser each time, {@code parseCached} revalidating the cached
+ * document. {@code parseMesh} parses a document whose {@value #MESH_SIZE} components all reference
+ * each other, which expands exponentially unless the schema node budget cuts it off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwaggerParserBenchmark {
+
+    private static final int MESH_SIZE = 10;
+
+    @Param({ "20", "200" })
+    private int pathCount;
+
+    private final SwaggerParser cachingParser = new SwaggerParser(2, 5000);
+    private Path spec;
+    private Path mesh;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"openapi\": \"3.0.1\", \"info\": {\"title\": \"bench\", \"version\": \"1\"}, \"paths\": {");
+        for (int i = 0; i < pathCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"/api/resource").append(i).append("/{id}\": {")
+                    .append("\"get\": {\"operationId\": \"get").append(i).append("\", \"responses\": {\"200\": {")
+                    .append("\"description\": \"ok\", \"content\": {\"application/json\": {\"schema\": ")
+                    .append("{\"$ref\": \"#/components/schemas/Order\"}}}}}},")
+                    .append("\"post\": {\"operationId\": \"post").append(i).append("\", \"requestBody\": {")
+                    .append("\"content\": {\"application/json\": {\"schema\": {\"$ref\": \"#/components/schemas/Order\"}}}},")
+                    .append("\"responses\": {\"201\": {\"description\": \"created\", \"content\": {\"application/json\": ")
+                    .append("{\"schema\": {\"$ref\": \"#/components/schemas/Customer\"}}}}}}}");
+        }
+        json.append(",\"/api/categories\": {\"get\": {\"responses\": {\"200\": {\"description\": \"ok\", ")
+                .append("\"content\": {\"application/json\": {\"schema\": {\"$ref\": \"#/components/schemas/Category\"}}}}}}}");
+        json.append("}, \"components\": {\"schemas\": {")
+                .append("\"Customer\": {\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"string\"}, ")
+                .append("\"email\": {\"type\": \"string\", \"format\": \"email\"}, \"name\": {\"type\": \"string\"}}},")
+                .append("\"Line\": {\"type\": \"object\", \"properties\": {\"sku\": {\"type\": \"string\"}, ")
+                .append("\"qty\": {\"type\": \"integer\"}, \"price\": {\"type\": \"number\"}}},")
+                .append("\"Order\": {\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"string\"}, ")
+                .append("\"customer\": {\"$ref\": \"#/components/schemas/Customer\"}, ")
+                .append("\"lines\": {\"type\": \"array\", \"items\": {\"$ref\": \"#/components/schemas/Line\"}}}},")
+                .append("\"Category\": {\"type\": \"object\", \"properties\": {\"name\": {\"type\": \"string\"}, ")
+                .append("\"parent\": {\"$ref\": \"#/components/schemas/Category\"}, ")
+                .append("\"children\": {\"type\": \"array\", \"items\": {\"$ref\": \"#/components/schemas/Category\"}}}}")
+                .append("}}}");
+
+        spec = Files.createTempFile("swagger-bench-", ".json");
+        Files.writeString(spec, json);
+
+        mesh = Files.createTempFile("swagger-mesh-", ".json");
+        Files.writeString(mesh, meshSpec());
+    }
+
+    private static String meshSpec() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"openapi\": \"3.0.1\", \"info\": {\"title\": \"mesh\", \"version\": \"1\"}, \"paths\": {");
+        for (int i = 0; i < MESH_SIZE; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"/api/entity").append(i).append("\": {\"get\": {\"responses\": {\"200\": {")
+                    .append("\"description\": \"ok\", \"content\": {\"application/json\": {\"schema\": ")
+                    .append("{\"$ref\": \"#/components/schemas/Entity").append(i).append("\"}}}}}}}");
+        }
+        json.append("}, \"components\": {\"schemas\": {");
+        for (int i = 0; i < MESH_SIZE; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"Entity").append(i).append("\": {\"type\": \"object\", \"properties\": {")
+                    .append("\"id\": {\"type\": \"string\"}");
+            for (int j = 0; j < MESH_SIZE; j++) {
+                if (j != i) {
+                    json.append(", \"entity").append(j).append("\": {\"$ref\": \"#/components/schemas/Entity")
+                            .append(j).append("\"}");
+                }
+            }
+            json.append("}}");
+        }
+        return json.append("}}}").toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(spec);
+        Files.deleteIfExists(mesh);
+    }
+
+    @Benchmark
+    public List<SwaggerEndpoint> parse() {
+        return new SwaggerParser(2, 5000).parseSwaggerUrl(spec.toString());
+    }
+
+    @Benchmark
+    public List<SwaggerEndpoint> parseMesh() {
+        return new SwaggerParser(2, 5000).parseSwaggerUrl(mesh.toString());
+    }
+
+    @Benchmark
+    public List<SwaggerEndpoint> parseCached() {
+        return cachingParser.parseSwaggerUrl(spec.toString());
+    }
+}
@@ -1,10 +1,14 @@
 package com.mock.controller;
 
+import com.mock.service.GeneratorPlan;
 import com.mock.service.MockDataGenerator;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.Map;
 
 @Slf4j
@@ -16,11 +20,17 @@ public class MockDataController {
     private final MockDataGenerator mockDataGenerator;
 
     /**
-     * Generate mock data from JSON schema
+     * Generate mock data from JSON schema; pass a seed for reproducible output
      */
     @PostMapping("/generate")
-    public Object generateMockData(@RequestBody Map<String, Object> schema) {
+    public void generateMockData(@RequestBody Map<String, Object> schema,
+            @RequestParam(required = false) Long seed, HttpServletResponse response) throws IOException {
         log.info("Generating mock data from schema");
-        return mockDataGenerator.generateFromSchema(schema);
+        // Each request body is a new schema instance, so caching its plan would never pay off
+        GeneratorPlan plan = mockDataGenerator.compile(schema);
+        // Streamed, so arrays with x-count/minItems in the 100k range do not need to fit in memory
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        mockDataGenerator.writeJson(plan, seed, response.getOutputStream());
     }
 }
@@ -2,11 +2,20 @@ package com.mock.controller;
 
 import com.mock.dto.SwaggerEndpoint;
 import com.mock.dto.SwaggerImportRequest;
+import com.mock.dto.SwaggerImportResult;
+import com.mock.dto.SwaggerServiceImport;
 import com.mock.service.SwaggerParser;
+import com.mock.service.SwaggerServiceImporter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Slf4j
@@ -16,6 +25,7 @@ import java.util.List;
 public class SwaggerImportController {
 
     private final SwaggerParser swaggerParser;
+    private final SwaggerServiceImporter serviceImporter;
 
     /**
      * Parse Swagger document and return available endpoints
@@ -25,4 +35,36 @@ public class SwaggerImportController {
         log.info("Received Swagger import request for URL: {}", request.getSwaggerUrl());
         return swaggerParser.parseSwaggerUrl(request.getSwaggerUrl());
     }
+
+    /**
+     * Parse an uploaded Swagger document file
+     */
+    @PostMapping(value = "/parse/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public List<SwaggerEndpoint> parseUpload(@RequestParam("file") MultipartFile file) throws IOException {
+        log.info("Received Swagger upload {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+        return swaggerParser.parseSwaggerContent(new String(file.getBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a Swagger document posted as the raw request body (JSON or YAML)
+     */
+    @PostMapping("/parse/raw")
+    public List<SwaggerEndpoint> parseRaw(@RequestBody String content) {
+        log.info("Received raw Swagger document ({} characters)", content.length());
+        return swaggerParser.parseSwaggerContent(content);
+    }
+
+    /**
+     * Turn a whole spec into a mock service (or add its operations to an existing one) in one call
+     */
+    @PostMapping("/import")
+    public SwaggerImportResult importService(@RequestBody SwaggerServiceImport request) {
+        log.info("Received Swagger service import for {}",
+                request.getSwaggerUrl() != null ? request.getSwaggerUrl() : "an inline document");
+        try {
+            return serviceImporter.importService(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 }
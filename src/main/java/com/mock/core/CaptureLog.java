@@ -0,0 +1,256 @@
+package com.mock.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Append-only capture log of one service, split into numbered segment files.
+ * <p>
+ * Record layout: {@code magic, length, key, status, headerCount, (name, value)*, bodyLength, body},
+ * with ints big-endian and strings as length-prefixed UTF-8. Only the index (key to status,
+ * headers and body position) lives on the heap; bodies are served from read-only mappings of
+ * the segments. A torn record at the end of the last segment is truncated on open.
+ */
+@Slf4j
+class CaptureLog implements Closeable {
+
+    private static final int MAGIC = 0x4D434150; // "MCAP"
+    private static final String SUFFIX = ".cap";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    private Segment active;
+    private FileChannel writer;
+
+    CaptureLog(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        // Mapped slices are int-addressed, so a segment never exceeds 2 GB
+        this.segmentBytes = Math.min(segmentBytes, Integer.MAX_VALUE);
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            Segment segment = new Segment(Integer.parseInt(name.substring(0, name.length() - SUFFIX.length())), file);
+            scan(segment);
+            segments.add(segment);
+        }
+        if (!segments.isEmpty()) {
+            active = segments.get(segments.size() - 1);
+            writer = FileChannel.open(active.path, StandardOpenOption.WRITE);
+            // Drop anything after the last intact record
+            writer.truncate(active.size);
+            writer.position(active.size);
+        }
+    }
+
+    synchronized void append(String key, CapturedResponse response) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> headerBytes = new ArrayList<>(response.getHeaders().size() * 2);
+        int headLength = 4 + 4 + 4 + keyBytes.length + 4 + 4 + 4;
+        for (String[] header : response.getHeaders()) {
+            byte[] name = header[0].getBytes(StandardCharsets.UTF_8);
+            byte[] value = header[1].getBytes(StandardCharsets.UTF_8);
+            headerBytes.add(name);
+            headerBytes.add(value);
+            headLength += 4 + name.length + 4 + value.length;
+        }
+        ByteBuffer body = response.getBody().duplicate();
+        int bodyLength = body.remaining();
+        long recordLength = (long) headLength + bodyLength;
+        if (recordLength > segmentBytes) {
+            throw new IOException("Capture of " + recordLength + " bytes exceeds the segment size");
+        }
+
+        if (active == null || active.size + recordLength > segmentBytes) {
+            roll();
+        }
+
+        ByteBuffer head = ByteBuffer.allocate(headLength);
+        head.putInt(MAGIC);
+        head.putInt(headLength - 8 + bodyLength);
+        head.putInt(keyBytes.length).put(keyBytes);
+        head.putInt(response.getStatus());
+        head.putInt(response.getHeaders().size());
+        for (byte[] bytes : headerBytes) {
+            head.putInt(bytes.length).put(bytes);
+        }
+        head.putInt(bodyLength);
+        head.flip();
+
+        long offset = active.size;
+        ByteBuffer[] buffers = { head, body };
+        while (head.hasRemaining() || body.hasRemaining()) {
+            writer.write(buffers);
+        }
+        active.size = offset + recordLength;
+        index.put(key, new Location(active, response.getStatus(), response.getHeaders(), offset + headLength,
+                bodyLength));
+    }
+
+    /**
+     * The latest capture for the key, or null
+     */
+    CapturedResponse find(String key) throws IOException {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer body = location.segment.slice(location.bodyOffset, location.bodyLength);
+        return new CapturedResponse(location.status, location.headers, body);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    long totalBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.size;
+        }
+        return total;
+    }
+
+    synchronized void clear() throws IOException {
+        close();
+        index.clear();
+        for (Segment segment : segments) {
+            Files.deleteIfExists(segment.path);
+        }
+        segments.clear();
+        active = null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        int number = active == null ? 0 : active.number + 1;
+        Path path = directory.resolve(String.format("%08d%s", number, SUFFIX));
+        writer = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        active = new Segment(number, path);
+        segments.add(active);
+    }
+
+    private void scan(Segment segment) throws IOException {
+        long fileSize = Files.size(segment.path);
+        if (fileSize == 0) {
+            return;
+        }
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+
+        int position = 0;
+        while (position + 8 <= fileSize) {
+            map.position(position);
+            if (map.getInt() != MAGIC) {
+                break;
+            }
+            int length = map.getInt();
+            if (length < 0 || position + 8L + length > fileSize) {
+                break;
+            }
+            String key = readString(map);
+            int status = map.getInt();
+            int headerCount = map.getInt();
+            List<String[]> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(new String[] { readString(map), readString(map) });
+            }
+            int bodyLength = map.getInt();
+            index.put(key, new Location(segment, status, headers, map.position(), bodyLength));
+            position += 8 + length;
+        }
+        if (position < fileSize) {
+            log.warn("Ignoring {} trailing bytes in capture segment {}", fileSize - position, segment.path);
+        }
+        segment.size = position;
+        segment.mapped = map;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+        private final int number;
+        private final Path path;
+        private volatile long size;
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(int number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+
+        private ByteBuffer slice(long offset, int length) throws IOException {
+            MappedByteBuffer map = mapped;
+            if (map == null || offset + length > map.capacity()) {
+                synchronized (this) {
+                    map = mapped;
+                    if (map == null || offset + length > map.capacity()) {
+                        // The active segment grew since it was last mapped
+                        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                        }
+                        mapped = map;
+                    }
+                }
+            }
+            return map.slice((int) offset, length).asReadOnlyBuffer();
+        }
+    }
+
+    private static final class Location {
+        private final Segment segment;
+        private final int status;
+        private final List<String[]> headers;
+        private final long bodyOffset;
+        private final int bodyLength;
+
+        private Location(Segment segment, int status, List<String[]> headers, long bodyOffset, int bodyLength) {
+            this.segment = segment;
+            this.status = status;
+            this.headers = headers;
+            this.bodyOffset = bodyOffset;
+            this.bodyLength = bodyLength;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mock.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mock.model.AppSettings;
+import com.mock.service.SettingsService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recorded upstream exchanges, one {@link CaptureLog} per service under the capture directory.
+ * Captures are keyed on method, path (with query string) and a hash of the normalized request
+ * body, so the same call with reordered JSON keys or different whitespace replays the same response.
+ */
+@Slf4j
+@Component
+public class CaptureStore {
+
+    private final Map<String, CaptureLog> logs = new ConcurrentHashMap<>();
+    private final SettingsService settingsService;
+    // Sorted keys make JSON bodies with the same content hash the same
+    private final ObjectMapper canonicalMapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    public CaptureStore(SettingsService settingsService) {
+        this.settingsService = settingsService;
+    }
+
+    public void record(String serviceId, String method, String path, byte[] requestBody, String contentType,
+            CapturedResponse response) {
+        try {
+            logFor(serviceId).append(key(method, path, requestBody, contentType), response);
+        } catch (IOException e) {
+            log.warn("Failed to record capture for {} {}", method, path, e);
+        }
+    }
+
+    /**
+     * The latest capture matching the request, or null
+     */
+    public CapturedResponse find(String serviceId, String method, String path, byte[] requestBody,
+            String contentType) throws IOException {
+        return logFor(serviceId).find(key(method, path, requestBody, contentType));
+    }
+
+    public int maxCaptureBytes() {
+        return settingsService.getSettings().getCaptureMaxBodyBytes();
+    }
+
+    /**
+     * Capture counts of the service; zeros when it never recorded anything, without creating a log
+     */
+    public Map<String, Object> stats(String serviceId) {
+        CaptureLog captureLog = logs.get(serviceId);
+        if (captureLog == null && Files.isDirectory(directoryOf(serviceId))) {
+            // Recorded before a restart: open it to count what is on disk
+            captureLog = logFor(serviceId);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("captures", captureLog != null ? captureLog.size() : 0);
+        stats.put("segments", captureLog != null ? captureLog.segmentCount() : 0);
+        stats.put("bytes", captureLog != null ? captureLog.totalBytes() : 0L);
+        return stats;
+    }
+
+    /**
+     * Delete the service's captures. Runs under the same map entry as {@link #logFor}, so a
+     * concurrent request cannot open the log from files that are being deleted; the emptied log
+     * stays in place for requests that already hold it.
+     */
+    public void clear(String serviceId) throws IOException {
+        try {
+            logs.compute(serviceId, (id, existing) -> {
+                CaptureLog captureLog = existing != null ? existing : openLog(id);
+                try {
+                    captureLog.clear();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return captureLog;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logs.values().forEach(captureLog -> {
+            try {
+                captureLog.close();
+            } catch (IOException e) {
+                log.warn("Failed to close capture log", e);
+            }
+        });
+    }
+
+    private CaptureLog logFor(String serviceId) {
+        return logs.computeIfAbsent(serviceId, this::openLog);
+    }
+
+    private CaptureLog openLog(String serviceId) {
+        AppSettings settings = settingsService.getSettings();
+        Path directory = directoryOf(serviceId);
+        try {
+            return new CaptureLog(directory, settings.getCaptureSegmentMb() * 1024L * 1024L);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open capture log " + directory, e);
+        }
+    }
+
+    private Path directoryOf(String serviceId) {
+        return Paths.get(settingsService.getSettings().getCaptureDirectory(), serviceId);
+    }
+
+    private String key(String method, String path, byte[] body, String contentType) {
+        return method.toUpperCase() + " " + path + " " + bodyHash(body, contentType);
+    }
+
+    private String bodyHash(byte[] body, String contentType) {
+        if (body == null || body.length == 0) {
+            return "-";
+        }
+        byte[] normalized = body;
+        boolean json = contentType != null ? contentType.contains("json") : (body[0] == '{' || body[0] == '[');
+        if (json) {
+            try {
+                normalized = canonicalMapper.writeValueAsBytes(canonicalMapper.readValue(body, Object.class));
+            } catch (IOException e) {
+                // Not actually JSON: hash it as-is
+            }
+        } else {
+            normalized = new String(body, StandardCharsets.UTF_8).strip().getBytes(StandardCharsets.UTF_8);
+        }
+        return DigestUtils.md5DigestAsHex(normalized);
+    }
+}
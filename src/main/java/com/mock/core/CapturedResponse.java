@@ -0,0 +1,24 @@
+package com.mock.core;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Status, headers and body of an upstream response, as recorded or as served on replay.
+ * On replay the body is a read-only view into a memory-mapped capture segment.
+ */
+@Getter
+public class CapturedResponse {
+
+    private final int status;
+    private final List<String[]> headers; // name/value pairs in upstream order
+    private final ByteBuffer body;
+
+    public CapturedResponse(int status, List<String[]> headers, ByteBuffer body) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+    }
+}
@@ -0,0 +1,191 @@
+package com.mock.core;
+
+import com.mock.model.MockRule;
+import com.mock.service.GeneratorPlan;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.expression.Expression;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link MockRule} together with the artifacts that are expensive to build per request:
+ * the compiled body regex, the parsed response template, the latency sampler, the generator plan
+ * and pre-generated variants of generate-mode rules, the collection settings of resource-mode rules
+ * and, for rules without a template, the encoded response body. Built by {@link RuleCompiler}.
+ */
+@Getter
+public class CompiledRule {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final MockRule rule;
+    private final Pattern bodyPattern; // null when the rule has no bodyMatch
+    private final Expression responseTemplate; // null when the body is not templated
+    private final LatencySampler latency; // null when the rule has no simulated delay
+    private final boolean templateUsesBody; // whether rendering needs the request body
+
+    private final String[] headerNames;
+    private final String[] headerValues;
+    private final Charset charset; // from the Content-Type header, UTF-8 by default
+    private final byte[] staticBody; // pre-encoded body, null when templated
+    private final String etag; // strong validator for static 2xx bodies, null otherwise
+    private final boolean etagHeader; // whether the rule sets ETag itself, so it is not added twice
+    private final ResponseCache cache; // forward-mode response cache, null when disabled
+    private final boolean contentTypeHeader; // whether the rule sets Content-Type itself
+
+    private final GeneratorPlan generatorPlan; // generate mode only
+    private final byte[][] variants; // pre-generated bodies served round-robin, null to generate per request
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger nextVariant = new AtomicInteger();
+
+    private final ResourceCollection.Config resourceConfig; // resource mode only
+    private final int resourceDepth; // path segments addressing the collection; one more is the item id
+
+    CompiledRule(MockRule rule, Pattern bodyPattern, Expression responseTemplate, LatencySampler latency) {
+        this(rule, bodyPattern, responseTemplate, latency, null, null, null, null);
+    }
+
+    /**
+     * @param previousCache the cache of the rule this one replaces, kept when caching is still on; may be null
+     * @param resourceConfig the config shared by every rule addressing the collection; null to use the rule's own
+     */
+    CompiledRule(MockRule rule, Pattern bodyPattern, Expression responseTemplate, LatencySampler latency,
+            GeneratorPlan generatorPlan, byte[][] variants, ResponseCache previousCache,
+            ResourceCollection.Config resourceConfig) {
+        this.rule = rule;
+        this.bodyPattern = bodyPattern;
+        this.responseTemplate = responseTemplate;
+        this.latency = latency;
+        this.generatorPlan = generatorPlan;
+        this.variants = variants;
+        this.templateUsesBody = responseTemplate != null && rule.getResponseBody().contains("#body");
+
+        Map<String, String> headers = rule.getResponseHeaders() != null ? rule.getResponseHeaders() : Map.of();
+        this.headerNames = new String[headers.size()];
+        this.headerValues = new String[headers.size()];
+        String contentType = null;
+        String explicitEtag = null;
+        int i = 0;
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            headerNames[i] = entry.getKey();
+            headerValues[i] = entry.getValue();
+            if ("Content-Type".equalsIgnoreCase(entry.getKey())) {
+                contentType = entry.getValue();
+            } else if ("ETag".equalsIgnoreCase(entry.getKey())) {
+                explicitEtag = entry.getValue();
+            }
+            i++;
+        }
+        this.charset = charsetOf(contentType);
+        this.contentTypeHeader = contentType != null;
+        this.etagHeader = explicitEtag != null;
+
+        this.cache = !"forward".equalsIgnoreCase(rule.getMode()) || rule.getCacheTtlMs() <= 0 ? null
+                : previousCache != null ? previousCache
+                : new ResponseCache(rule.getCacheTtlMs(), rule.getCacheMaxBytes());
+
+        if ("resource".equalsIgnoreCase(rule.getMode())) {
+            this.resourceConfig = resourceConfig != null ? resourceConfig : resourceConfigOf(rule);
+            this.resourceDepth = collectionDepth(rule.getUrlPattern());
+        } else {
+            this.resourceConfig = null;
+            this.resourceDepth = -1;
+        }
+
+        if (responseTemplate == null && generatorPlan == null) {
+            this.staticBody = rule.getResponseBody() != null ? rule.getResponseBody().getBytes(charset) : EMPTY;
+            boolean success = rule.getResponseStatus() >= 200 && rule.getResponseStatus() < 300;
+            this.etag = !success ? null
+                    : explicitEtag != null ? explicitEtag
+                    : "\"" + DigestUtils.md5DigestAsHex(staticBody) + "\"";
+        } else {
+            this.staticBody = null;
+            this.etag = null;
+        }
+    }
+
+    public boolean isTemplated() {
+        return responseTemplate != null;
+    }
+
+    public boolean isGenerated() {
+        return generatorPlan != null;
+    }
+
+    /**
+     * The next pre-generated body, or null when the body is generated per request
+     */
+    public byte[] nextVariant() {
+        if (variants == null) {
+            return null;
+        }
+        // floorMod keeps the index valid once the counter wraps around
+        return variants[Math.floorMod(nextVariant.getAndIncrement(), variants.length)];
+    }
+
+    public boolean isResource() {
+        return resourceConfig != null;
+    }
+
+    static ResourceCollection.Config resourceConfigOf(MockRule rule) {
+        return new ResourceCollection.Config(rule.getResourceIdField(),
+                rule.getResourceIndexes() != null ? Set.copyOf(rule.getResourceIndexes()) : Set.of(),
+                rule.getResourceMaxItems(), rule.getResourceMaxBytes());
+    }
+
+    /**
+     * The collection a resource-mode rule addresses: its explicit name, or the collection part of its
+     * URL pattern, which is what requests matching it resolve to. Null for other modes.
+     */
+    static String collectionKey(MockRule rule) {
+        if (!"resource".equalsIgnoreCase(rule.getMode())) {
+            return null;
+        }
+        if (StringUtils.hasText(rule.getResourceCollection())) {
+            return rule.getResourceCollection();
+        }
+        String pattern = rule.getUrlPattern() != null ? rule.getUrlPattern() : "";
+        String[] segments = StringUtils.tokenizeToStringArray(pattern, "/");
+        return "/" + String.join("/", Arrays.asList(segments).subList(0, collectionDepth(pattern)));
+    }
+
+    /**
+     * Segments of the pattern once a trailing wildcard or {id} placeholder is dropped: /api/users/**
+     * serves the collection at /api/users and its items at /api/users/{id}
+     */
+    private static int collectionDepth(String urlPattern) {
+        String[] segments = StringUtils.tokenizeToStringArray(urlPattern != null ? urlPattern : "", "/");
+        int depth = segments.length;
+        if (depth > 0) {
+            String last = segments[depth - 1];
+            if (last.equals("*") || last.equals("**") || (last.startsWith("{") && last.endsWith("}"))) {
+                depth--;
+            }
+        }
+        return depth;
+    }
+
+    private static Charset charsetOf(String contentType) {
+        if (contentType != null) {
+            try {
+                Charset charset = MediaType.parseMediaType(contentType).getCharset();
+                if (charset != null) {
+                    return charset;
+                }
+            } catch (Exception e) {
+                // Unparseable Content-Type: keep the default
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,49 @@
+package com.mock.core;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared timer that finishes delayed responses. Requests waiting on a delay are parked
+ * with an AsyncContext, so they hold a scheduled task instead of a Tomcat worker thread.
+ */
+@Slf4j
+@Component
+public class DelayScheduler {
+
+    private static final int TIMER_THREADS = 2;
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    public DelayScheduler() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, "mock-delay-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.timer = new ScheduledThreadPoolExecutor(TIMER_THREADS, threadFactory);
+        // Cancelled tasks would otherwise sit in the queue until their deadline
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return timer.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public int pending() {
+        return timer.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -1,24 +1,35 @@
 package com.mock.core;
 
-import com.mock.model.MockServiceConfig;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DispatcherServlet extends HttpServlet {
 
     private final MockRequestDispatcher dispatcher;
-    private final MockServiceConfig config;
+    private final AtomicReference<RuleSnapshot> snapshot;
 
-    public DispatcherServlet(MockRequestDispatcher dispatcher, MockServiceConfig config) {
+    public DispatcherServlet(MockRequestDispatcher dispatcher, RuleSnapshot snapshot) {
         this.dispatcher = dispatcher;
-        this.config = config;
+        this.snapshot = new AtomicReference<>(snapshot);
+    }
+
+    /**
+     * Publish new rules; in-flight requests finish on the snapshot they started with
+     */
+    public void swap(RuleSnapshot next) {
+        snapshot.set(next);
+    }
+
+    public RuleSnapshot current() {
+        return snapshot.get();
     }
 
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        dispatcher.dispatch(req, resp, config);
+        dispatcher.dispatch(req, resp, snapshot.get());
     }
 }
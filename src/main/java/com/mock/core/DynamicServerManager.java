@@ -1,81 +1,280 @@
 package com.mock.core;
 
 import com.mock.model.MockServiceConfig;
+import com.mock.service.SettingsService;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.server.WebServer;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
-import org.springframework.boot.web.servlet.server.ServletWebServerFactory;
 import org.springframework.stereotype.Component;
 
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRegistration;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 @Component
 public class DynamicServerManager {
 
-    private final Map<String, WebServer> runningServers = new ConcurrentHashMap<>();
+    private final Map<String, RunningService> runningServers = new ConcurrentHashMap<>();
+    // One lock per service instead of one monitor for all, so services start and stop in parallel
+    private final Map<String, ReentrantLock> serviceLocks = new ConcurrentHashMap<>();
+    // Claimed before binding, so two services starting in parallel cannot race for a port
+    private final Map<Integer, String> portOwners = new ConcurrentHashMap<>();
     private final MockRequestDispatcher dispatcher;
     private final EurekaRegistrar eurekaRegistrar;
+    private final SettingsService settingsService;
+    private final SharedServerHost sharedHost;
 
-    public DynamicServerManager(MockRequestDispatcher dispatcher, EurekaRegistrar eurekaRegistrar) {
+    public DynamicServerManager(MockRequestDispatcher dispatcher, EurekaRegistrar eurekaRegistrar,
+            SettingsService settingsService, SharedServerHost sharedHost) {
         this.dispatcher = dispatcher;
         this.eurekaRegistrar = eurekaRegistrar;
+        this.settingsService = settingsService;
+        this.sharedHost = sharedHost;
     }
 
-    public synchronized void startService(MockServiceConfig config) {
+    /**
+     * Start the service with its rules as compiled by {@link RuleCompiler#compile(MockServiceConfig)}
+     */
+    public void startService(MockServiceConfig config, RuleSnapshot rules) {
+        requireSameConfig(config, rules);
+        ReentrantLock lock = lockFor(config.getId());
+        lock.lock();
+        try {
+            doStartService(config, rules);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doStartService(MockServiceConfig config, RuleSnapshot rules) {
         if (runningServers.containsKey(config.getId())) {
             log.warn("Service {} is already running", config.getServiceName());
             return;
         }
 
-        try {
-            TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(config.getPort());
+        String owner = portOwners.putIfAbsent(config.getPort(), config.getId());
+        if (owner != null && !owner.equals(config.getId())) {
+            throw new IllegalStateException("Port " + config.getPort() + " is already used by service "
+                    + describe(owner));
+        }
 
-            // Set context path if specified
-            if (config.getContextPath() != null && !config.getContextPath().equals("/")) {
-                factory.setContextPath(config.getContextPath());
-            }
+        try {
+            DispatcherServlet servlet = new DispatcherServlet(dispatcher, rules);
+            boolean virtualThreads = isVirtualThreads(config);
+            boolean shared = isSharedMode();
 
-            WebServer server = factory.getWebServer(new ServletContextInitializer() {
-                @Override
-                public void onStartup(ServletContext servletContext) throws ServletException {
-                    ServletRegistration.Dynamic registration = servletContext.addServlet("dispatcher",
-                            new DispatcherServlet(dispatcher, config));
-                    registration.addMapping("/*");
-                    registration.setLoadOnStartup(1);
-                }
-            });
+            WebServer server = shared
+                    // The shared executors size themselves; only per-connector limits apply
+                    ? sharedHost.attach(config, servlet, virtualThreads,
+                            connector -> applyPoolSettings(connector, config, true))
+                    : createIsolatedServer(config, servlet, virtualThreads);
 
             server.start();
-            runningServers.put(config.getId(), server);
+            runningServers.put(config.getId(), new RunningService(server, servlet, config));
             config.setRunning(true);
-            log.info("Started mock service [{}] on port {}", config.getServiceName(), config.getPort());
+            log.info("Started mock service [{}] on port {} ({} server, {} threads)", config.getServiceName(),
+                    config.getPort(), shared ? "shared" : "isolated", virtualThreads ? "virtual" : "platform");
 
             eurekaRegistrar.register(config);
 
         } catch (Exception e) {
+            portOwners.remove(config.getPort(), config.getId());
             log.error("Failed to start service {}", config.getServiceName(), e);
             throw new RuntimeException("Failed to start service", e);
         }
     }
 
-    public synchronized void stopService(MockServiceConfig config) {
-        WebServer server = runningServers.remove(config.getId());
-        if (server != null) {
-            server.stop();
+    /**
+     * Apply an edited config to a running service. Rules are swapped in place; the server is
+     * only restarted when something bound to it (port, context path, threading) changed.
+     *
+     * @param rules the config's rules, compiled by the caller when it validated them
+     * @return false if the service is not running
+     */
+    public boolean applyConfig(MockServiceConfig config, RuleSnapshot rules) {
+        requireSameConfig(config, rules);
+        ReentrantLock lock = lockFor(config.getId());
+        lock.lock();
+        try {
+            return doApplyConfig(config, rules);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean doApplyConfig(MockServiceConfig config, RuleSnapshot next) {
+        RunningService running = runningServers.get(config.getId());
+        if (running == null) {
+            return false;
+        }
+
+        MockServiceConfig previous = running.config;
+        if (requiresRestart(previous, config)) {
+            log.info("Restarting mock service [{}] to apply server settings", config.getServiceName());
+            doStopService(previous);
+            doStartService(config, next);
+            return true;
+        }
+
+        running.servlet.swap(next);
+        running.config = config;
+        config.setRunning(true);
+        log.info("Swapped rules of mock service [{}] to version {} ({} rules)", config.getServiceName(),
+                next.getVersion(), next.getRules().size());
+
+        // The Eureka instance id is derived from the name, so a rename is a re-registration
+        if (!Objects.equals(previous.getServiceName(), config.getServiceName())) {
+            eurekaRegistrar.deregister(previous);
+            eurekaRegistrar.register(config);
+        }
+        return true;
+    }
+
+    private boolean requiresRestart(MockServiceConfig previous, MockServiceConfig next) {
+        return previous.getPort() != next.getPort()
+                || !normalizeContextPath(previous).equals(normalizeContextPath(next))
+                || !Objects.equals(previous.getExecutorMode(), next.getExecutorMode())
+                || !Objects.equals(previous.getMaxThreads(), next.getMaxThreads())
+                || !Objects.equals(previous.getAcceptCount(), next.getAcceptCount())
+                || !Objects.equals(previous.getMaxConnections(), next.getMaxConnections());
+    }
+
+    private static String normalizeContextPath(MockServiceConfig config) {
+        String contextPath = config.getContextPath();
+        return contextPath == null || contextPath.equals("/") ? "" : contextPath;
+    }
+
+    public void stopService(MockServiceConfig config) {
+        ReentrantLock lock = lockFor(config.getId());
+        lock.lock();
+        try {
+            doStopService(config);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doStopService(MockServiceConfig config) {
+        RunningService running = runningServers.remove(config.getId());
+        if (running != null) {
+            running.server.stop();
+            portOwners.remove(running.config.getPort(), config.getId());
             config.setRunning(false);
+            running.config.setRunning(false);
             log.info("Stopped mock service [{}]", config.getServiceName());
 
-            eurekaRegistrar.deregister(config);
+            // Deregister under the identity it was registered with
+            eurekaRegistrar.deregister(running.config);
+        }
+    }
+
+    private WebServer createIsolatedServer(MockServiceConfig config, DispatcherServlet servlet,
+            boolean virtualThreads) {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(config.getPort());
+
+        // Set context path if specified
+        if (config.getContextPath() != null && !config.getContextPath().equals("/")) {
+            factory.setContextPath(config.getContextPath());
+        }
+
+        if (virtualThreads) {
+            // One virtual thread per request: blocking in forwarding/templates no longer caps concurrency
+            factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(
+                    new VirtualThreadExecutor("mock-" + config.getPort() + "-")));
+        }
+        factory.addConnectorCustomizers(connector -> applyPoolSettings(connector, config, virtualThreads));
+
+        return factory.getWebServer(new ServletContextInitializer() {
+            @Override
+            public void onStartup(ServletContext servletContext) throws ServletException {
+                ServletRegistration.Dynamic registration = servletContext.addServlet("dispatcher", servlet);
+                registration.addMapping("/*");
+                // Delayed responses are parked with AsyncContext instead of sleeping
+                registration.setAsyncSupported(true);
+                registration.setLoadOnStartup(1);
+            }
+        });
+    }
+
+    private boolean isSharedMode() {
+        return "shared".equalsIgnoreCase(settingsService.getSettings().getServerMode());
+    }
+
+    private boolean isVirtualThreads(MockServiceConfig config) {
+        String mode = config.getExecutorMode();
+        if (mode == null || mode.isBlank()) {
+            mode = settingsService.getSettings().getDefaultExecutorMode();
+        }
+        return "virtual".equalsIgnoreCase(mode);
+    }
+
+    private void applyPoolSettings(Connector connector, MockServiceConfig config, boolean virtualThreads) {
+        if (!(connector.getProtocolHandler() instanceof AbstractProtocol<?> protocol)) {
+            return;
+        }
+        if (!virtualThreads && config.getMaxThreads() != null) {
+            protocol.setMaxThreads(config.getMaxThreads());
+        }
+        if (config.getAcceptCount() != null) {
+            protocol.setAcceptCount(config.getAcceptCount());
+        }
+        if (config.getMaxConnections() != null) {
+            protocol.setMaxConnections(config.getMaxConnections());
         }
     }
 
     public boolean isRunning(String serviceId) {
         return runningServers.containsKey(serviceId);
     }
+
+    /**
+     * Id of the running service bound to the port, or null if it is free
+     */
+    public String portOwner(int port) {
+        return portOwners.get(port);
+    }
+
+    private static void requireSameConfig(MockServiceConfig config, RuleSnapshot rules) {
+        if (rules.getConfig() != config) {
+            throw new IllegalArgumentException("Rules were compiled from another config of service " + config.getId());
+        }
+    }
+
+    private ReentrantLock lockFor(String serviceId) {
+        return serviceLocks.computeIfAbsent(serviceId, id -> new ReentrantLock());
+    }
+
+    private String describe(String serviceId) {
+        RunningService running = runningServers.get(serviceId);
+        return running != null ? running.config.getServiceName() : serviceId;
+    }
+
+    /**
+     * Rules currently serving traffic for the service, or null if it is not running
+     */
+    public RuleSnapshot currentSnapshot(String serviceId) {
+        RunningService running = runningServers.get(serviceId);
+        return running != null ? running.servlet.current() : null;
+    }
+
+    private static final class RunningService {
+        private final WebServer server;
+        private final DispatcherServlet servlet;
+        private MockServiceConfig config;
+
+        private RunningService(WebServer server, DispatcherServlet servlet, MockServiceConfig config) {
+            this.server = server;
+            this.servlet = servlet;
+            this.config = config;
+        }
+    }
 }
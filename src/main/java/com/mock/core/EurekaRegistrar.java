@@ -1,127 +1,304 @@
 package com.mock.core;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.model.AppSettings;
 import com.mock.model.MockServiceConfig;
 import com.mock.service.SettingsService;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Registers running mock services with Eureka and keeps their leases alive.
+ * <p>
+ * Registration never blocks the caller: it runs on a small shared scheduler and is retried
+ * with exponential backoff until Eureka accepts it or the service is deregistered. A single
+ * recurring task renews the leases of all registered instances, so the number of threads does
+ * not grow with the number of services. Renewals are sent asynchronously, each with its own
+ * timeout, so an unreachable instance path never holds up the others' heartbeats.
+ */
 @Slf4j
 @Component
 public class EurekaRegistrar {
 
+    private static final int SCHEDULER_THREADS = 2;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+
     private final SettingsService settingsService;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledThreadPoolExecutor scheduler;
+    // Keyed by service id, so a renamed service replaces its previous registration
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    private volatile String hostName;
+    private volatile String ipAddr;
 
     public EurekaRegistrar(SettingsService settingsService) {
         this.settingsService = settingsService;
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, "eureka-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.scheduler = new ScheduledThreadPoolExecutor(SCHEDULER_THREADS, threadFactory);
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        // On shutdown only the queued deregistrations still run, not pending heartbeats or retries
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduleHeartbeats();
     }
 
+    /**
+     * Queue the service for registration; returns immediately
+     */
+    public void register(MockServiceConfig config) {
+        Registration registration = new Registration(config.getServiceName().toUpperCase(), config.getPort());
+        Registration previous = registrations.put(config.getId(), registration);
+        if (previous != null) {
+            cancel(previous);
+        }
+        registration.pending = scheduler.schedule(() -> attemptRegistration(config.getId(), registration), 0,
+                TimeUnit.MILLISECONDS);
+    }
 
+    /**
+     * Stop renewing the service's lease and remove it from Eureka in the background
+     */
+    public void deregister(MockServiceConfig config) {
+        Registration registration = registrations.remove(config.getId());
+        if (registration != null) {
+            cancel(registration);
+        }
+    }
 
-    public void register(MockServiceConfig config) {
+    public int registeredCount() {
+        int count = 0;
+        for (Registration registration : registrations.values()) {
+            if (registration.registered) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Registration registration : registrations.values()) {
+            cancel(registration);
+        }
+        registrations.clear();
+        scheduler.shutdown();
         try {
-            String eurekaUrl = settingsService.getSettings().getEurekaUrl();
-            boolean preferIp = settingsService.getSettings().isPreferIpAddress();
-            
-            String appName = config.getServiceName().toUpperCase();
-            String hostName = InetAddress.getLocalHost().getHostName();
-            String ipAddr = InetAddress.getLocalHost().getHostAddress();
-            
-            // Use IP or hostname based on preference
-            String addressToUse = preferIp ? ipAddr : hostName;
-            String instanceId = addressToUse + ":" + appName + ":" + config.getPort();
+            // Give the queued deregistrations a chance before the JVM goes away
+            scheduler.awaitTermination(READ_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void attemptRegistration(String serviceId, Registration registration) {
+        if (registrations.get(serviceId) != registration) {
+            return; // Deregistered or replaced meanwhile
+        }
+        try {
+            registration.prepare();
+            send(HttpRequest.newBuilder(URI.create(baseUrl() + "apps/" + registration.appName))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(registration.payload))));
+            registration.registered = true;
+            registration.failures = 0;
+            log.info("Registered {} with Eureka as {}", registration.appName, registration.instanceId);
+            if (registration.cancelled) {
+                // Deregistered while the request was in flight: take it back out
+                cancel(registration);
+            }
+        } catch (Exception e) {
+            long backoff = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(registration.failures, 16));
+            registration.failures++;
+            log.warn("Failed to register {} with Eureka (attempt {}), retrying in {} ms: {}", registration.appName,
+                    registration.failures, backoff, e.getMessage());
+            if (registrations.get(serviceId) == registration && !scheduler.isShutdown()) {
+                registration.pending = scheduler.schedule(() -> attemptRegistration(serviceId, registration),
+                        backoff, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void cancel(Registration registration) {
+        registration.cancelled = true;
+        ScheduledFuture<?> pending = registration.pending;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        if (registration.registered && !scheduler.isShutdown()) {
+            scheduler.execute(() -> {
+                try {
+                    send(HttpRequest.newBuilder(URI.create(baseUrl() + registration.instancePath)).DELETE());
+                    log.info("Deregistered {} from Eureka", registration.appName);
+                } catch (Exception e) {
+                    log.warn("Failed to deregister {} from Eureka: {}", registration.appName, e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * One task renews every lease, then reschedules itself with the current interval setting
+     */
+    private void scheduleHeartbeats() {
+        long interval = Math.max(1, settingsService.getSettings().getHeartbeatIntervalSeconds());
+        scheduler.schedule(() -> {
+            try {
+                sendHeartbeats();
+            } finally {
+                if (!scheduler.isShutdown()) {
+                    scheduleHeartbeats();
+                }
+            }
+        }, interval, TimeUnit.SECONDS);
+    }
+
+    private void sendHeartbeats() {
+        String baseUrl = baseUrl();
+        registrations.forEach((serviceId, registration) -> {
+            // Skip instances whose previous renewal has not come back yet rather than piling requests up
+            if (!registration.registered || registration.cancelled || !registration.renewing.compareAndSet(false, true)) {
+                return;
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + registration.instancePath))
+                    .timeout(READ_TIMEOUT)
+                    .PUT(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+                registration.renewing.set(false);
+                if (e != null) {
+                    log.warn("Heartbeat failed for {}: {}", registration.instanceId, e.getMessage());
+                } else if (response.statusCode() == 404) {
+                    reregister(serviceId, registration);
+                } else if (response.statusCode() >= 300) {
+                    log.warn("Heartbeat failed for {}: HTTP {}", registration.instanceId, response.statusCode());
+                } else {
+                    log.debug("Sent heartbeat for {}", registration.instanceId);
+                }
+            });
+        });
+    }
 
-            // Clean up eureka URL
-            String url = eurekaUrl.endsWith("/") ? eurekaUrl : eurekaUrl + "/";
-            url = url + "apps/" + appName;
+    private void reregister(String serviceId, Registration registration) {
+        // Eureka dropped the lease (e.g. it restarted): register again
+        if (registration.cancelled || scheduler.isShutdown()) {
+            return;
+        }
+        log.info("Eureka no longer knows {}, registering again", registration.instanceId);
+        registration.registered = false;
+        registration.pending = scheduler.schedule(() -> attemptRegistration(serviceId, registration), 0,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send on the calling (scheduler) thread; anything but a 2xx is an error
+     */
+    private void send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(request.timeout(READ_TIMEOUT).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 300) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+    }
+
+    private String baseUrl() {
+        String eurekaUrl = settingsService.getSettings().getEurekaUrl();
+        return eurekaUrl.endsWith("/") ? eurekaUrl : eurekaUrl + "/";
+    }
+
+    private void resolveHost() throws Exception {
+        if (hostName == null) {
+            // Can take a DNS round trip, so it is resolved once on the scheduler, never per request
+            InetAddress localHost = InetAddress.getLocalHost();
+            ipAddr = localHost.getHostAddress();
+            hostName = localHost.getHostName();
+        }
+    }
+
+    /**
+     * One instance and its cached registration payload
+     */
+    private final class Registration {
+        private final String appName;
+        private final int port;
+        private String instanceId;
+        private String instancePath;
+        private Map<String, Object> payload;
+        private volatile boolean registered;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> pending;
+        private final AtomicBoolean renewing = new AtomicBoolean();
+        private int failures;
+
+        private Registration(String appName, int port) {
+            this.appName = appName;
+            this.port = port;
+        }
+
+        private void prepare() throws Exception {
+            if (payload != null) {
+                return;
+            }
+            resolveHost();
+            AppSettings settings = settingsService.getSettings();
+            boolean preferIp = settings.isPreferIpAddress();
+            String addressToUse = preferIp ? ipAddr : hostName;
+            instanceId = addressToUse + ":" + appName + ":" + port;
+            instancePath = "apps/" + appName + "/" + instanceId;
 
             Map<String, Object> instance = new HashMap<>();
             instance.put("instanceId", instanceId);
-            instance.put("hostName", preferIp ? ipAddr : hostName);
+            instance.put("hostName", addressToUse);
             instance.put("app", appName);
             instance.put("ipAddr", ipAddr);
             instance.put("status", "UP");
             instance.put("overriddenStatus", "UNKNOWN");
-            instance.put("port", Map.of("$", config.getPort(), "@enabled", "true"));
+            instance.put("port", Map.of("$", port, "@enabled", "true"));
             instance.put("securePort", Map.of("$", 443, "@enabled", "false"));
             instance.put("countryId", 1);
             instance.put("dataCenterInfo", Map.of(
                     "@class", "com.netflix.appinfo.InstanceInfo$DefaultDataCenterInfo",
                     "name", "MyOwn"));
-            instance.put("homePageUrl", "http://" + addressToUse + ":" + config.getPort() + "/");
-            instance.put("statusPageUrl", "http://" + addressToUse + ":" + config.getPort() + "/info");
-            instance.put("healthCheckUrl", "http://" + addressToUse + ":" + config.getPort() + "/health");
+            instance.put("homePageUrl", "http://" + addressToUse + ":" + port + "/");
+            instance.put("statusPageUrl", "http://" + addressToUse + ":" + port + "/info");
+            instance.put("healthCheckUrl", "http://" + addressToUse + ":" + port + "/health");
             instance.put("vipAddress", appName);
             instance.put("secureVipAddress", appName);
+            int interval = settings.getHeartbeatIntervalSeconds();
+            // Eureka's default 90s lease would expire between heartbeats with longer intervals
+            instance.put("leaseInfo", Map.of("renewalIntervalInSecs", interval,
+                    "durationInSecs", Math.max(90, interval * 3)));
 
             Map<String, Object> body = new HashMap<>();
             body.put("instance", instance);
-
-            try {
-                restTemplate.postForObject(url, body, Void.class);
-                log.info("Registered {} with Eureka at {} (using {})", appName, url, preferIp ? "IP" : "hostname");
-
-                // Start heartbeat in a separate thread (simplified)
-                startHeartbeat(appName, instanceId);
-            } catch (Exception e) {
-                log.warn("Failed to register {} with Eureka: {}", appName, e.getMessage());
-            }
-
-        } catch (Exception e) {
-            log.error("Error preparing Eureka registration", e);
+            payload = body;
         }
     }
-
-
-
-    public void deregister(MockServiceConfig config) {
-        try {
-            String eurekaUrl = settingsService.getSettings().getEurekaUrl();
-            boolean preferIp = settingsService.getSettings().isPreferIpAddress();
-            
-            String appName = config.getServiceName().toUpperCase();
-            String hostName = InetAddress.getLocalHost().getHostName();
-            String ipAddr = InetAddress.getLocalHost().getHostAddress();
-            String addressToUse = preferIp ? ipAddr : hostName;
-            String instanceId = addressToUse + ":" + appName + ":" + config.getPort();
-
-            String url = eurekaUrl.endsWith("/") ? eurekaUrl : eurekaUrl + "/";
-            url = url + "apps/" + appName + "/" + instanceId;
-
-            restTemplate.delete(url);
-            log.info("Deregistered {} from Eureka", appName);
-        } catch (Exception e) {
-            log.error("Failed to deregister from Eureka", e);
-        }
-    }
-
-
-
-    private void startHeartbeat(String appName, String instanceId) {
-        // In a real app, we'd manage this thread better
-        new Thread(() -> {
-            while (true) {
-                try {
-                    int interval = settingsService.getSettings().getHeartbeatIntervalSeconds();
-                    Thread.sleep(interval * 1000L);
-                    
-                    String eurekaUrl = settingsService.getSettings().getEurekaUrl();
-                    String url = eurekaUrl.endsWith("/") ? eurekaUrl : eurekaUrl + "/";
-                    url = url + "apps/" + appName + "/" + instanceId;
-                    restTemplate.put(url, null);
-                    log.debug("Sent heartbeat for {}", instanceId);
-                } catch (InterruptedException e) {
-                    break;
-                } catch (Exception e) {
-                    log.warn("Heartbeat failed for {}", instanceId);
-                }
-            }
-        }).start();
-    }
 }
-
@@ -0,0 +1,262 @@
+package com.mock.core;
+
+import com.mock.model.AppSettings;
+import com.mock.model.MockRule;
+import com.mock.service.SettingsService;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Forward-mode engine: a pooled, keep-alive HTTP client that streams request and response
+ * bodies between the servlet streams and the upstream connection without buffering them.
+ */
+@Slf4j
+@Component
+public class ForwardingProxy {
+
+    // Connection-scoped headers that must not be relayed, plus those the client computes itself
+    private static final Set<String> SKIPPED_HEADERS = Set.of("host", "connection", "keep-alive",
+            "proxy-connection", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+            "transfer-encoding", "upgrade", "content-length");
+
+    private final SettingsService settingsService;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+
+    public ForwardingProxy(SettingsService settingsService) {
+        this.settingsService = settingsService;
+        AppSettings settings = settingsService.getSettings();
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.getForwardMaxConnections())
+                .setMaxConnPerRoute(settings.getForwardMaxConnectionsPerTarget())
+                .build();
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                // Relay redirects and compressed bodies as-is, like a reverse proxy
+                .disableRedirectHandling()
+                .disableContentCompression()
+                .disableCookieManagement()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+    }
+
+    /**
+     * Forward the request to the rule's target and stream the upstream response back.
+     * A body nobody has read yet is streamed straight from the servlet input stream.
+     */
+    public void forward(HttpServletRequest req, HttpServletResponse resp, MockRule rule, RequestBody body)
+            throws IOException {
+        relay(req, resp, rule, body, -1);
+    }
+
+    /**
+     * Forward like {@link #forward} while keeping a copy of the response for recording.
+     *
+     * @return the response, or null if forwarding failed or the body exceeded maxCaptureBytes
+     */
+    public CapturedResponse forwardAndCapture(HttpServletRequest req, HttpServletResponse resp, MockRule rule,
+            RequestBody body, int maxCaptureBytes) throws IOException {
+        return relay(req, resp, rule, body, maxCaptureBytes);
+    }
+
+    private CapturedResponse relay(HttpServletRequest req, HttpServletResponse resp, MockRule rule,
+            RequestBody body, int maxCaptureBytes) throws IOException {
+        applyPoolLimits();
+        ClassicHttpRequest request = buildRequest(req, rule, body);
+        try {
+            return client.execute(request, response -> {
+                resp.setStatus(response.getCode());
+                List<String[]> headers = new ArrayList<>();
+                for (Header header : response.getHeaders()) {
+                    if (!SKIPPED_HEADERS.contains(header.getName().toLowerCase())) {
+                        resp.addHeader(header.getName(), header.getValue());
+                        headers.add(new String[] { header.getName(), header.getValue() });
+                    }
+                }
+
+                ByteArrayOutputStream copy = maxCaptureBytes >= 0 ? new ByteArrayOutputStream() : null;
+                HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    if (entity.getContentLength() >= 0) {
+                        resp.setContentLengthLong(entity.getContentLength());
+                        if (entity.getContentLength() > maxCaptureBytes) {
+                            copy = null;
+                        }
+                    }
+                    copy = transfer(entity, new ClientOutputStream(resp.getOutputStream()), copy, maxCaptureBytes);
+                }
+                return copy != null
+                        ? new CapturedResponse(response.getCode(), headers, ByteBuffer.wrap(copy.toByteArray()))
+                        : null;
+            });
+        } catch (ClientAbortedException e) {
+            // The client hung up mid-body; nothing is wrong upstream and nobody is left to answer
+            log.debug("Client went away while forwarding from {}", rule.getForwardUrl(), e.getCause());
+        } catch (ConnectTimeoutException | SocketTimeoutException e) {
+            fail(resp, HttpServletResponse.SC_GATEWAY_TIMEOUT, rule, e);
+        } catch (IOException e) {
+            fail(resp, HttpServletResponse.SC_BAD_GATEWAY, rule, e);
+        }
+        return null;
+    }
+
+    /**
+     * Stream the entity to the client, teeing into copy until it would exceed the limit
+     *
+     * @return the copy, or null once it was abandoned
+     */
+    private static ByteArrayOutputStream transfer(HttpEntity entity, OutputStream out, ByteArrayOutputStream copy,
+            int limit) throws IOException {
+        if (copy == null) {
+            entity.writeTo(out);
+            return null;
+        }
+        try (InputStream in = entity.getContent()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                if (copy != null) {
+                    if (copy.size() + n > limit) {
+                        copy = null;
+                    } else {
+                        copy.write(buffer, 0, n);
+                    }
+                }
+            }
+        }
+        return copy;
+    }
+
+    private ClassicHttpRequest buildRequest(HttpServletRequest req, MockRule rule, RequestBody body)
+            throws IOException {
+        // Basic support for appending path info if needed could go here,
+        // but for now we trust the rule's forwardUrl.
+        ClassicRequestBuilder builder = ClassicRequestBuilder.create(req.getMethod()).setUri(rule.getForwardUrl());
+
+        Enumeration<String> headerNames = req.getHeaderNames();
+        while (headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            if (SKIPPED_HEADERS.contains(headerName.toLowerCase())) {
+                continue;
+            }
+            Enumeration<String> values = req.getHeaders(headerName);
+            while (values.hasMoreElements()) {
+                builder.addHeader(headerName, values.nextElement());
+            }
+        }
+
+        ContentType contentType = req.getContentType() != null ? ContentType.parseLenient(req.getContentType()) : null;
+        if (body.hasContent()) {
+            // Unknown length (-1) goes upstream chunked
+            builder.setEntity(new InputStreamEntity(body.stream(), body.length(), contentType));
+        }
+
+        RequestConfig config = RequestConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(rule.getConnectTimeoutMs()))
+                .setResponseTimeout(Timeout.ofMilliseconds(rule.getReadTimeoutMs()))
+                .build();
+        ClassicHttpRequest request = builder.build();
+        request.setConfig(config);
+        return request;
+    }
+
+    private void applyPoolLimits() {
+        // Settings can change at runtime; the pool adopts new limits without being rebuilt
+        AppSettings settings = settingsService.getSettings();
+        if (connectionManager.getMaxTotal() != settings.getForwardMaxConnections()) {
+            connectionManager.setMaxTotal(settings.getForwardMaxConnections());
+        }
+        if (connectionManager.getDefaultMaxPerRoute() != settings.getForwardMaxConnectionsPerTarget()) {
+            connectionManager.setDefaultMaxPerRoute(settings.getForwardMaxConnectionsPerTarget());
+        }
+    }
+
+    private void fail(HttpServletResponse resp, int status, MockRule rule, Exception e) throws IOException {
+        log.error("Forwarding to {} failed", rule.getForwardUrl(), e);
+        if (resp.isCommitted()) {
+            // Upstream broke mid-body; all we can do is cut the client connection short
+            throw new IOException("Forwarding failed after response was committed", e);
+        }
+        resp.reset();
+        resp.setStatus(status);
+        resp.getWriter().write("Forwarding failed: " + e.getMessage());
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        client.close();
+    }
+
+    /**
+     * Tags failures writing to the client, so they are not mistaken for upstream failures
+     */
+    private static final class ClientOutputStream extends FilterOutputStream {
+
+        private ClientOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                throw new ClientAbortedException(e);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                throw new ClientAbortedException(e);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new ClientAbortedException(e);
+            }
+        }
+    }
+
+    private static final class ClientAbortedException extends IOException {
+        private ClientAbortedException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.mock.core;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Raised when a rule cannot be compiled, e.g. a malformed body regex or response template.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRuleException extends RuntimeException {
+
+    public InvalidRuleException(String message) {
+        super(message);
+    }
+
+    public InvalidRuleException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
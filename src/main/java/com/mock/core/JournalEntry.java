@@ -0,0 +1,31 @@
+package com.mock.core;
+
+import lombok.Getter;
+
+/**
+ * One served request as kept in a {@link RequestJournal}
+ */
+@Getter
+public class JournalEntry {
+
+    private final long seq;
+    private final long timestamp;
+    private final String method;
+    private final String uri;
+    private final String rule;
+    private final int status;
+    private final long latencyMicros;
+    private final String body;
+
+    public JournalEntry(long seq, long timestamp, String method, String uri, String rule, int status,
+            long latencyMicros, String body) {
+        this.seq = seq;
+        this.timestamp = timestamp;
+        this.method = method;
+        this.uri = uri;
+        this.rule = rule;
+        this.status = status;
+        this.latencyMicros = latencyMicros;
+        this.body = body;
+    }
+}
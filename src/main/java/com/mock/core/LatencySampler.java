@@ -0,0 +1,72 @@
+package com.mock.core;
+
+import com.mock.model.LatencyProfile;
+import com.mock.model.MockRule;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws per-request delays for a rule. Built once when the rule is compiled.
+ */
+@FunctionalInterface
+public interface LatencySampler {
+
+    long nextDelayMs();
+
+    /**
+     * Sampler for the rule, or null when the rule has no simulated latency
+     */
+    static LatencySampler of(MockRule rule) {
+        LatencyProfile profile = rule.getLatency();
+        if (profile == null) {
+            long fixed = rule.getDelayMs();
+            return fixed > 0 ? () -> fixed : null;
+        }
+
+        String type = profile.getType() != null ? profile.getType().toLowerCase() : "fixed";
+        long min = Math.max(0, profile.getMinMs());
+        long max = profile.getMaxMs();
+        switch (type) {
+            case "fixed": {
+                long fixed = profile.getFixedMs();
+                return fixed > 0 ? () -> fixed : null;
+            }
+            case "uniform": {
+                if (max < min) {
+                    throw new IllegalArgumentException("uniform latency needs maxMs >= minMs");
+                }
+                if (max == 0) {
+                    return null;
+                }
+                return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+            }
+            case "normal": {
+                double mean = profile.getMeanMs();
+                double stdDev = profile.getStdDevMs();
+                if (mean < 0 || stdDev < 0) {
+                    throw new IllegalArgumentException("normal latency needs non-negative meanMs and stdDevMs");
+                }
+                return () -> clamp(mean + stdDev * ThreadLocalRandom.current().nextGaussian(), min, max);
+            }
+            case "percentile": {
+                // Log-normal fitted through p50 and p99, which gives the long right tail real services show
+                long p50 = profile.getP50Ms();
+                long p99 = profile.getP99Ms();
+                if (p50 <= 0 || p99 < p50) {
+                    throw new IllegalArgumentException("percentile latency needs 0 < p50Ms <= p99Ms");
+                }
+                double zP99 = 2.3263478740408408; // 99th percentile of the standard normal
+                double mu = Math.log(p50);
+                double sigma = (Math.log(p99) - mu) / zP99;
+                return () -> clamp(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()), min, max);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown latency type: " + profile.getType());
+        }
+    }
+
+    private static long clamp(double value, long min, long max) {
+        long delay = Math.max(min, Math.round(value));
+        return max > 0 ? Math.min(delay, max) : delay;
+    }
+}
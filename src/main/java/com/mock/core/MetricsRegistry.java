@@ -0,0 +1,33 @@
+package com.mock.core;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatcher metrics of all services, kept across restarts and dropped when a service is deleted
+ */
+@Component
+public class MetricsRegistry {
+
+    private final Map<String, ServiceMetrics> services = new ConcurrentHashMap<>();
+
+    public ServiceMetrics forService(String serviceId) {
+        ServiceMetrics metrics = services.get(serviceId);
+        return metrics != null ? metrics : services.computeIfAbsent(serviceId, ServiceMetrics::new);
+    }
+
+    public ServiceMetrics find(String serviceId) {
+        return services.get(serviceId);
+    }
+
+    public Collection<ServiceMetrics> all() {
+        return services.values();
+    }
+
+    public void remove(String serviceId) {
+        services.remove(serviceId);
+    }
+}
@@ -1,62 +1,113 @@
 package com.mock.core;
 
+import com.mock.model.AppSettings;
 import com.mock.model.MockRule;
 import com.mock.model.MockServiceConfig;
+import com.mock.service.MockDataGenerator;
+import com.mock.service.SettingsService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
-import org.springframework.util.StreamUtils;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.Map;
-import java.util.regex.Pattern;
-import java.util.Enumeration;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Component
 public class MockRequestDispatcher {
 
+    // Headroom over the simulated delay before the container times the request out
+    private static final long ASYNC_TIMEOUT_MARGIN_MS = 10_000;
+
     private final AntPathMatcher pathMatcher = new AntPathMatcher();
-    private final ExpressionParser parser = new SpelExpressionParser();
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final DelayScheduler delayScheduler;
+    private final ForwardingProxy forwardingProxy;
+    private final CaptureStore captureStore;
+    private final MetricsRegistry metricsRegistry;
+    private final RequestJournals journals;
+    private final SettingsService settingsService;
+    private final MockDataGenerator generator;
+    private final ResourceHandler resourceHandler;
 
-    public void dispatch(HttpServletRequest req, HttpServletResponse resp, MockServiceConfig config)
+    public MockRequestDispatcher(DelayScheduler delayScheduler, ForwardingProxy forwardingProxy,
+            CaptureStore captureStore, MetricsRegistry metricsRegistry, RequestJournals journals,
+            SettingsService settingsService, MockDataGenerator generator, ResourceHandler resourceHandler) {
+        this.delayScheduler = delayScheduler;
+        this.forwardingProxy = forwardingProxy;
+        this.captureStore = captureStore;
+        this.metricsRegistry = metricsRegistry;
+        this.journals = journals;
+        this.settingsService = settingsService;
+        this.generator = generator;
+        this.resourceHandler = resourceHandler;
+    }
+
+    public void dispatch(HttpServletRequest req, HttpServletResponse resp, RuleSnapshot snapshot)
             throws IOException {
+        long start = System.nanoTime();
         String uri = req.getRequestURI();
         String method = req.getMethod();
-        String body = StreamUtils.copyToString(req.getInputStream(), StandardCharsets.UTF_8);
+        MockServiceConfig config = snapshot.getConfig();
+        // Read lazily: only bodyMatch candidates, #body templates and forwarding touch it
+        RequestBody body = new RequestBody(req, config.getMaxBodyBytes(),
+                "spill".equalsIgnoreCase(config.getBodyOverflow()));
 
-        log.info("Received request: {} {} on service {}", method, uri, config.getServiceName());
+        AppSettings settings = settingsService.getSettings();
+        // Logging every request synchronously caps throughput; the journal keeps them instead
+        double sampleRate = settings.getRequestLogSampleRate();
+        if (sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            log.info("Received request: {} {} on service {}", method, uri, config.getServiceName());
+        }
 
-        MockRule matchedRule = findMatchingRule(req, body, config);
+        ServiceMetrics serviceMetrics = metricsRegistry.forService(config.getId());
+        serviceMetrics.getRequests().increment();
+        Exchange exchange = new Exchange(serviceMetrics, journals.forService(config.getId()), method, uri, start,
+                settings.getJournalBodyChars());
+        try {
+            CompiledRule matchedRule = findMatchingRule(req, body, snapshot);
+            serviceMetrics.getMatch().recordNanos(System.nanoTime() - start);
 
-        if (matchedRule != null) {
-            handleResponse(resp, matchedRule, req, body);
-        } else {
-            resp.setStatus(404);
-            resp.getWriter().write("No matching mock rule found for " + method + " " + uri);
+            if (matchedRule != null) {
+                exchange.matched(serviceMetrics.forRule(matchedRule));
+                handleResponse(resp, matchedRule, req, body, config.getId(), exchange);
+            } else {
+                resp.setStatus(404);
+                resp.getWriter().write("No matching mock rule found for " + method + " " + uri);
+            }
+        } catch (RequestBody.TooLargeException e) {
+            resp.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            resp.getWriter().write(e.getMessage());
+        } finally {
+            // Delayed responses are recorded when the scheduled write completes
+            if (!req.isAsyncStarted()) {
+                exchange.captureBody(body);
+                exchange.finish(resp.getStatus());
+            }
+            body.release();
         }
     }
 
-    private MockRule findMatchingRule(HttpServletRequest req, String body, MockServiceConfig config) {
-        for (MockRule rule : config.getRules()) {
-            // Match Method
-            if (StringUtils.hasText(rule.getMethod()) && !rule.getMethod().equalsIgnoreCase(req.getMethod())) {
-                continue;
-            }
+    private CompiledRule findMatchingRule(HttpServletRequest req, RequestBody body, RuleSnapshot snapshot)
+            throws IOException {
+        // The index narrows by method and path segments; candidates keep rule order
+        for (CompiledRule compiled : snapshot.candidates(req.getMethod(), req.getRequestURI())) {
+            MockRule rule = compiled.getRule();
 
             // Match URL
             if (StringUtils.hasText(rule.getUrlPattern())
@@ -65,115 +116,347 @@ public class MockRequestDispatcher {
             }
 
             // Match Body
-            if (StringUtils.hasText(rule.getBodyMatch())) {
-                if (body == null || !Pattern.compile(rule.getBodyMatch()).matcher(body).find()) {
+            if (compiled.getBodyPattern() != null) {
+                // A body spilled to disk is too large to match against
+                String text = body.text();
+                if (text == null || !compiled.getBodyPattern().matcher(text).find()) {
                     continue;
                 }
             }
 
-            return rule;
+            return compiled;
         }
         return null;
     }
 
-    private void handleResponse(HttpServletResponse resp, MockRule rule, HttpServletRequest req, String requestBody)
-            throws IOException {
+    private void handleResponse(HttpServletResponse resp, CompiledRule compiled, HttpServletRequest req,
+            RequestBody body, String serviceId, Exchange exchange) throws IOException {
+        RuleMetrics metrics = exchange.ruleMetrics;
+        MockRule rule = compiled.getRule();
         if ("forward".equalsIgnoreCase(rule.getMode()) && StringUtils.hasText(rule.getForwardUrl())) {
-            handleForwarding(resp, rule, req, requestBody);
+            long forwardStart = System.nanoTime();
+            try {
+                if (compiled.getCache() != null) {
+                    forwardCached(req, resp, compiled, body);
+                } else {
+                    // Streams the body through unless matching already had to read it
+                    forwardingProxy.forward(req, resp, rule, body);
+                }
+            } finally {
+                metrics.getForward().recordNanos(System.nanoTime() - forwardStart);
+            }
+            return;
+        }
+        if ("record".equalsIgnoreCase(rule.getMode()) && StringUtils.hasText(rule.getForwardUrl())) {
+            long forwardStart = System.nanoTime();
+            try {
+                record(req, resp, rule, body, serviceId);
+            } finally {
+                metrics.getForward().recordNanos(System.nanoTime() - forwardStart);
+            }
+            return;
+        }
+        if ("replay".equalsIgnoreCase(rule.getMode())) {
+            replay(req, resp, body, serviceId);
+            return;
+        }
+        if (compiled.isResource()) {
+            resourceHandler.handle(req, resp, compiled, body, serviceId);
             return;
         }
 
-        if (rule.getDelayMs() > 0) {
+        // Render while the request is still in hand; the delayed write must not touch it
+        byte[] responseBody;
+        if (compiled.isGenerated()) {
+            // A pre-generated variant, or null to stream a freshly generated body when writing
+            responseBody = compiled.nextVariant();
+        } else if (compiled.isTemplated()) {
+            long renderStart = System.nanoTime();
+            responseBody = renderBody(compiled, req, compiled.isTemplateUsesBody() ? body.text() : null);
+            metrics.getTemplate().recordNanos(System.nanoTime() - renderStart);
+        } else {
+            responseBody = compiled.getStaticBody();
+        }
+        // 304 only answers GET and HEAD (RFC 9110); other methods ignore the precondition
+        boolean notModified = compiled.getEtag() != null
+                && ("GET".equals(req.getMethod()) || "HEAD".equals(req.getMethod()))
+                && etagMatches(req.getHeader(HttpHeaders.IF_NONE_MATCH), compiled.getEtag());
+
+        long delayMs = compiled.getLatency() != null ? compiled.getLatency().nextDelayMs() : 0;
+        if (delayMs > 0) {
+            metrics.getDelay().recordMicros(delayMs * 1_000);
+        }
+        if (delayMs > 0 && req.isAsyncSupported()) {
+            // Park the request instead of sleeping on the worker thread
+            exchange.captureBody(body);
+            AsyncContext async = req.startAsync();
+            async.setTimeout(delayMs + ASYNC_TIMEOUT_MARGIN_MS);
+            delayScheduler.schedule(() -> async.start(() -> {
+                HttpServletResponse asyncResponse = (HttpServletResponse) async.getResponse();
+                try {
+                    writeResponse(asyncResponse, compiled, responseBody, notModified);
+                } catch (Exception e) {
+                    log.warn("Failed to write delayed response", e);
+                } finally {
+                    exchange.finish(asyncResponse.getStatus());
+                    async.complete();
+                }
+            }), delayMs);
+            return;
+        }
+        if (delayMs > 0) {
             try {
-                Thread.sleep(rule.getDelayMs());
+                Thread.sleep(delayMs);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
         }
 
-        resp.setStatus(rule.getResponseStatus());
+        writeResponse(resp, compiled, responseBody, notModified);
+    }
+
+    private void record(HttpServletRequest req, HttpServletResponse resp, MockRule rule, RequestBody body,
+            String serviceId) throws IOException {
+        // The request body is part of the capture key, so it has to be read here
+        byte[] requestBytes = body.bytes();
+        if (requestBytes == null) {
+            // Spilled to disk: too large to key on, just relay it
+            forwardingProxy.forward(req, resp, rule, body);
+            return;
+        }
+        CapturedResponse captured = forwardingProxy.forwardAndCapture(req, resp, rule, body,
+                captureStore.maxCaptureBytes());
+        if (captured != null) {
+            captureStore.record(serviceId, req.getMethod(), pathWithQuery(req), requestBytes, req.getContentType(),
+                    captured);
+        }
+    }
+
+    private void replay(HttpServletRequest req, HttpServletResponse resp, RequestBody body, String serviceId)
+            throws IOException {
+        byte[] requestBytes = body.bytes();
+        CapturedResponse captured = requestBytes == null ? null
+                : captureStore.find(serviceId, req.getMethod(), pathWithQuery(req), requestBytes,
+                        req.getContentType());
+        if (captured == null) {
+            resp.setStatus(404);
+            resp.getWriter().write("No recorded response for " + req.getMethod() + " " + pathWithQuery(req));
+            return;
+        }
+
+        writeCaptured(resp, captured);
+    }
+
+    private void forwardCached(HttpServletRequest req, HttpServletResponse resp, CompiledRule compiled,
+            RequestBody body) throws IOException {
+        MockRule rule = compiled.getRule();
+        ResponseCache cache = compiled.getCache();
+        byte[] requestBytes = body.bytes();
+        if (requestBytes == null) {
+            // Spilled to disk: too large to key on, just relay it
+            forwardingProxy.forward(req, resp, rule, body);
+            return;
+        }
+
+        String key = cacheKey(req, rule, requestBytes);
+        CapturedResponse cached = cache.get(key);
+        if (cached != null) {
+            writeCaptured(resp, cached);
+            return;
+        }
+
+        CompletableFuture<CapturedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<CapturedResponse> leader = cache.lead(key, mine);
+        if (leader != null) {
+            // Someone is already fetching this key: wait for their response rather than going upstream
+            CapturedResponse shared = awaitLeader(leader, rule);
+            if (shared != null) {
+                writeCaptured(resp, shared);
+            } else {
+                forwardingProxy.forward(req, resp, rule, body);
+            }
+            return;
+        }
+
+        CapturedResponse captured = null;
+        try {
+            captured = forwardingProxy.forwardAndCapture(req, resp, rule, body, cache.maxEntryBytes());
+        } finally {
+            cache.complete(key, mine, captured);
+        }
+    }
+
+    /**
+     * The leader's response, or null if it could not be shared in time. The read timeout applies to
+     * each read, so it does not bound a leader trickling its body; the wait has its own budget.
+     */
+    private static CapturedResponse awaitLeader(CompletableFuture<CapturedResponse> leader, MockRule rule) {
+        try {
+            return leader.get(rule.getConnectTimeoutMs() + rule.getCacheWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
 
-        if (rule.getResponseHeaders() != null) {
-            for (Map.Entry<String, String> entry : rule.getResponseHeaders().entrySet()) {
-                resp.addHeader(entry.getKey(), entry.getValue());
+    private static String cacheKey(HttpServletRequest req, MockRule rule, byte[] requestBytes) {
+        StringBuilder key = new StringBuilder(req.getMethod()).append(' ').append(pathWithQuery(req));
+        if (rule.getCacheKeyHeaders() != null) {
+            for (String name : rule.getCacheKeyHeaders()) {
+                key.append('\n').append(name).append(':').append(req.getHeader(name));
             }
         }
+        key.append('\n').append(requestBytes.length == 0 ? "-" : DigestUtils.md5DigestAsHex(requestBytes));
+        return key.toString();
+    }
 
-        if (rule.getResponseBody() != null) {
-            String responseBody = rule.getResponseBody();
-            try {
-                // Simple SpEL evaluation context
-                EvaluationContext context = new StandardEvaluationContext();
-                context.setVariable("req", req);
-                context.setVariable("body", requestBody);
-                // TODO: Add more useful variables like path variables, query params
-
-                // If the response body contains SpEL expressions like #{...}
-                if (responseBody.contains("#{")) {
-                    // This is a very naive template replacement.
-                    // For a real template engine, we might want something more robust.
-                    // But for "expressions", we can just evaluate the whole string if it's an
-                    // expression,
-                    // or replace parts. Let's assume the user puts the whole body as a template or
-                    // specific parts.
-                    // For now, let's just support direct SpEL if the string starts with #{ and ends
-                    // with }
-                    // Or better, use a TemplateParserContext if we want mixed content.
-
-                    // Let's try to parse it as a template string if it has #{
-                    org.springframework.expression.common.TemplateParserContext templateContext = new org.springframework.expression.common.TemplateParserContext();
-                    responseBody = parser.parseExpression(responseBody, templateContext).getValue(context,
-                            String.class);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to evaluate response template", e);
-                // Fallback to raw body
+    private static void writeCaptured(HttpServletResponse resp, CapturedResponse captured) throws IOException {
+        resp.setStatus(captured.getStatus());
+        for (String[] header : captured.getHeaders()) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header[0])) {
+                resp.addHeader(header[0], header[1]);
             }
-            resp.getWriter().write(responseBody);
+        }
+        // Cached responses are shared between requests, so never consume the original buffer
+        ByteBuffer payload = captured.getBody().duplicate();
+        resp.setContentLength(payload.remaining());
+        // Copies through a small transfer buffer; the mapped body itself never lands on the heap
+        WritableByteChannel channel = Channels.newChannel(resp.getOutputStream());
+        while (payload.hasRemaining()) {
+            channel.write(payload);
         }
     }
 
-    private void handleForwarding(HttpServletResponse resp, MockRule rule, HttpServletRequest req, String body) throws IOException {
+    private static String pathWithQuery(HttpServletRequest req) {
+        return req.getQueryString() != null ? req.getRequestURI() + "?" + req.getQueryString() : req.getRequestURI();
+    }
+
+    private byte[] renderBody(CompiledRule compiled, HttpServletRequest req, String requestBody) {
+        String responseBody = compiled.getRule().getResponseBody();
         try {
-            String targetUrl = rule.getForwardUrl();
-            // Basic support for appending path info if needed could go here, 
-            // but for now we trust the rule's forwardUrl.
-
-            HttpMethod method = HttpMethod.valueOf(req.getMethod());
-            
-            HttpHeaders headers = new HttpHeaders();
-            Enumeration<String> headerNames = req.getHeaderNames();
-            while (headerNames.hasMoreElements()) {
-                String headerName = headerNames.nextElement();
-                // Skip headers that are hop-by-hop or might cause issues
-                if (!headerName.equalsIgnoreCase("host") 
-                        && !headerName.equalsIgnoreCase("content-length")
-                        && !headerName.equalsIgnoreCase("transfer-encoding")) {
-                    headers.add(headerName, req.getHeader(headerName));
-                }
+            // Simple SpEL evaluation context
+            EvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("req", req);
+            context.setVariable("body", requestBody);
+            // TODO: Add more useful variables like path variables, query params
+
+            // The template was parsed once when the rule was compiled
+            responseBody = compiled.getResponseTemplate().getValue(context, String.class);
+        } catch (Exception e) {
+            log.warn("Failed to evaluate response template", e);
+            // Fallback to raw body
+        }
+        return responseBody != null ? responseBody.getBytes(compiled.getCharset()) : new byte[0];
+    }
+
+    private void writeResponse(HttpServletResponse resp, CompiledRule compiled, byte[] responseBody,
+            boolean notModified) throws IOException {
+        String[] names = compiled.getHeaderNames();
+        String[] values = compiled.getHeaderValues();
+        for (int i = 0; i < names.length; i++) {
+            resp.addHeader(names[i], values[i]);
+        }
+        if (compiled.getEtag() != null && !compiled.isEtagHeader()) {
+            resp.setHeader(HttpHeaders.ETAG, compiled.getEtag());
+        }
+        if (compiled.isGenerated() && !compiled.isContentTypeHeader()) {
+            resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        }
+
+        if (notModified) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        resp.setStatus(compiled.getRule().getResponseStatus());
+        if (responseBody == null) {
+            // Generated per request: streamed token by token, so the length is not known up front
+            generator.writeJson(compiled.getGeneratorPlan(), compiled.getRule().getGenerateSeed(),
+                    resp.getOutputStream());
+            return;
+        }
+        // Bytes straight to the output stream: no writer, no per-request encoding for static rules
+        resp.setContentLength(responseBody.length);
+        resp.getOutputStream().write(responseBody);
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            String own = etag.startsWith("W/") ? etag.substring(2) : etag;
+            if (tag.equals(own)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bookkeeping of one request: where its metrics and journal entry go once it has been answered
+     */
+    private static final class Exchange {
+        private final ServiceMetrics serviceMetrics;
+        private final RequestJournal journal;
+        private final String method;
+        private final String uri;
+        private final long start;
+        private final int bodyChars;
+        private RuleMetrics ruleMetrics;
+        private String bodyExcerpt;
+
+        private Exchange(ServiceMetrics serviceMetrics, RequestJournal journal, String method, String uri,
+                long start, int bodyChars) {
+            this.serviceMetrics = serviceMetrics;
+            this.journal = journal;
+            this.method = method;
+            this.uri = uri;
+            this.start = start;
+            this.bodyChars = bodyChars;
+        }
+
+        private void matched(RuleMetrics metrics) {
+            this.ruleMetrics = metrics;
+            metrics.getHits().increment();
+        }
+
+        /**
+         * Keep an excerpt of the body if something already read it; never reads it just for the journal
+         */
+        private void captureBody(RequestBody body) {
+            if (bodyChars <= 0 || !body.isRead()) {
+                return;
             }
-            
-            HttpEntity<String> entity = new HttpEntity<>(body, headers);
-            
-            ResponseEntity<byte[]> response = restTemplate.exchange(targetUrl, method, entity, byte[].class);
-            
-            resp.setStatus(response.getStatusCode().value());
-            
-            response.getHeaders().forEach((k, v) -> {
-                // Skip some response headers if needed
-                if (!k.equalsIgnoreCase("transfer-encoding")) {
-                    v.forEach(val -> resp.addHeader(k, val));
+            try {
+                String text = body.text();
+                if (text != null && !text.isEmpty()) {
+                    bodyExcerpt = text.length() > bodyChars ? text.substring(0, bodyChars) : text;
                 }
-            });
-            
-            if (response.getBody() != null) {
-                resp.getOutputStream().write(response.getBody());
+            } catch (IOException e) {
+                // Already read, so this cannot fail
             }
-            
-        } catch (Exception e) {
-            log.error("Forwarding failed", e);
-            resp.setStatus(500);
-            resp.getWriter().write("Forwarding failed: " + e.getMessage());
+        }
+
+        private void finish(int status) {
+            long elapsed = System.nanoTime() - start;
+            if (ruleMetrics != null) {
+                ruleMetrics.complete(status, start);
+            } else {
+                serviceMetrics.unmatched(status, start);
+            }
+            journal.append(System.currentTimeMillis(), method, uri, ruleMetrics != null ? ruleMetrics.getKey() : null,
+                    status, elapsed / 1_000, bodyExcerpt);
         }
     }
 }
@@ -0,0 +1,155 @@
+package com.mock.core;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Request body that is only read when a rule actually needs it.
+ * <p>
+ * Up to {@code maxBytes} are kept in memory. Beyond that the body is either rejected
+ * ({@link TooLargeException}, answered with 413) or spilled to a temp file. A spilled body is
+ * still relayed by forward rules but is not visible to {@code bodyMatch} or templates.
+ * Call {@link #release()} when the request is done.
+ */
+@Slf4j
+public class RequestBody {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final HttpServletRequest request;
+    private final long maxBytes;
+    private final boolean spillToDisk;
+
+    private boolean read;
+    private boolean streamed;
+    private byte[] bytes;
+    private String text;
+    private Path spillFile;
+
+    public RequestBody(HttpServletRequest request, long maxBytes, boolean spillToDisk) {
+        this.request = request;
+        this.maxBytes = maxBytes;
+        this.spillToDisk = spillToDisk;
+    }
+
+    /**
+     * The body decoded as UTF-8, or null if it was spilled to disk
+     */
+    public String text() throws IOException {
+        if (text == null && bytes() != null) {
+            text = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+
+    /**
+     * The body bytes, or null if it was spilled to disk
+     */
+    public byte[] bytes() throws IOException {
+        if (!read) {
+            load();
+        }
+        return bytes;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public boolean hasContent() {
+        if (read) {
+            return bytes != null ? bytes.length > 0 : spillFile != null;
+        }
+        return request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null;
+    }
+
+    /**
+     * Length in bytes, -1 if unknown because the body has not been read and is chunked
+     */
+    public long length() throws IOException {
+        if (!read) {
+            return request.getContentLengthLong();
+        }
+        return bytes != null ? bytes.length : Files.size(spillFile);
+    }
+
+    /**
+     * Stream the body from wherever it currently is, without loading it if it was never read
+     */
+    public InputStream stream() throws IOException {
+        if (!read) {
+            streamed = true;
+            return request.getInputStream();
+        }
+        return bytes != null ? new ByteArrayInputStream(bytes) : Files.newInputStream(spillFile);
+    }
+
+    public void release() {
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                log.warn("Failed to delete spilled request body {}", spillFile, e);
+            }
+            spillFile = null;
+        }
+    }
+
+    private void load() throws IOException {
+        if (streamed) {
+            throw new IllegalStateException("Request body was already handed out as a stream");
+        }
+        read = true;
+        long declared = request.getContentLengthLong();
+        if (declared > maxBytes && !spillToDisk) {
+            throw new TooLargeException(declared, maxBytes);
+        }
+
+        InputStream in = request.getInputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(declared > 0 && declared <= maxBytes
+                ? (int) declared : CHUNK_SIZE);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        long total = 0;
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            total += n;
+            if (total > maxBytes) {
+                if (!spillToDisk) {
+                    throw new TooLargeException(total, maxBytes);
+                }
+                spill(buffer, chunk, n, in);
+                return;
+            }
+            buffer.write(chunk, 0, n);
+        }
+        bytes = buffer.toByteArray();
+    }
+
+    private void spill(ByteArrayOutputStream head, byte[] chunk, int n, InputStream rest) throws IOException {
+        spillFile = Files.createTempFile("mock-body-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(spillFile)) {
+            head.writeTo(out);
+            out.write(chunk, 0, n);
+            rest.transferTo(out);
+        }
+    }
+
+    /**
+     * Body exceeds the service's limit and the service does not spill to disk
+     */
+    public static class TooLargeException extends IOException {
+
+        public TooLargeException(long size, long limit) {
+            super("Request body of at least " + size + " bytes exceeds the limit of " + limit + " bytes");
+        }
+    }
+}
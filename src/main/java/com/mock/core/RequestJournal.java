@@ -0,0 +1,60 @@
+package com.mock.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Fixed-size, lock-free ring buffer of the most recent requests of a service.
+ * <p>
+ * Writers claim a sequence number and overwrite the slot it maps to, so appending never
+ * blocks and memory stays at {@code capacity} entries however much traffic comes in.
+ * Readers walk back from the newest sequence and skip slots that were overwritten meanwhile.
+ */
+public class RequestJournal {
+
+    private final AtomicReferenceArray<JournalEntry> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    public RequestJournal(int capacity) {
+        // Round up to a power of two so the slot is a mask, not a division
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void append(long timestamp, String method, String uri, String rule, int status, long latencyMicros,
+            String body) {
+        long seq = next.getAndIncrement();
+        slots.set((int) (seq & mask), new JournalEntry(seq, timestamp, method, uri, rule, status, latencyMicros,
+                body));
+    }
+
+    /**
+     * Newest first: at most {@code limit} entries after {@code afterSeq} that pass the filter
+     */
+    public List<JournalEntry> query(Predicate<JournalEntry> filter, long afterSeq, int limit) {
+        List<JournalEntry> result = new ArrayList<>(Math.min(limit, slots.length()));
+        long newest = next.get() - 1;
+        long oldest = Math.max(afterSeq + 1, newest - mask);
+        for (long seq = newest; seq >= oldest && result.size() < limit; seq--) {
+            JournalEntry entry = slots.get((int) (seq & mask));
+            // Null while the writer has claimed but not filled the slot, or a newer lap already
+            if (entry != null && entry.getSeq() == seq && filter.test(entry)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long total() {
+        return next.get();
+    }
+}
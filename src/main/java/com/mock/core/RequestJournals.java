@@ -0,0 +1,36 @@
+package com.mock.core;
+
+import com.mock.service.SettingsService;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request journal of every service, sized from the settings when first used
+ */
+@Component
+public class RequestJournals {
+
+    private final Map<String, RequestJournal> journals = new ConcurrentHashMap<>();
+    private final SettingsService settingsService;
+
+    public RequestJournals(SettingsService settingsService) {
+        this.settingsService = settingsService;
+    }
+
+    public RequestJournal forService(String serviceId) {
+        RequestJournal journal = journals.get(serviceId);
+        return journal != null ? journal
+                : journals.computeIfAbsent(serviceId,
+                        id -> new RequestJournal(settingsService.getSettings().getJournalCapacity()));
+    }
+
+    public RequestJournal find(String serviceId) {
+        return journals.get(serviceId);
+    }
+
+    public void remove(String serviceId) {
+        journals.remove(serviceId);
+    }
+}
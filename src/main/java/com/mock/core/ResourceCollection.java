@@ -0,0 +1,440 @@
+package com.mock.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One collection of a resource-mode service: JSON objects by id, with secondary indexes on
+ * selected fields.
+ * <p>
+ * Writes never wait on each other: every write goes through {@link ConcurrentHashMap#compute} on
+ * its id, which keeps the write order and the indexes consistent with the item, and reads never
+ * block. Items are kept in write order, which gives stable pagination and decides what is evicted
+ * once the collection holds more than {@code maxItems} items or {@code maxBytes} of JSON.
+ * <p>
+ * When the config changes the collection is {@link #rebuild rebuilt} into a new one. Writes share
+ * a read lock that only the rebuild takes exclusively, so no write lands after the copy; calls on
+ * the old collection from requests that still hold it are passed on to the new one.
+ */
+public final class ResourceCollection {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final Config config;
+
+    private final ConcurrentHashMap<String, Item> items = new ConcurrentHashMap<>();
+    // Write sequence -> id, oldest first
+    private final ConcurrentSkipListMap<Long, String> order = new ConcurrentSkipListMap<>();
+    // Field -> value -> ids; the field set is fixed for the lifetime of the collection
+    private final Map<String, ConcurrentMap<String, Set<String>>> indexes;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    // Read-locked by writes, write-locked by rebuild()
+    private final ReentrantReadWriteLock retirement = new ReentrantReadWriteLock();
+    // The collection this one was rebuilt into; set once
+    private volatile ResourceCollection successor;
+
+    ResourceCollection(String name, Config config) {
+        this.name = name;
+        this.config = config;
+        Map<String, ConcurrentMap<String, Set<String>>> fields = new HashMap<>();
+        for (String field : config.getIndexes()) {
+            fields.put(field, new ConcurrentHashMap<>());
+        }
+        this.indexes = Collections.unmodifiableMap(fields);
+    }
+
+    public Item get(String id) {
+        ResourceCollection next = successor;
+        return next != null ? next.get(id) : items.get(id);
+    }
+
+    public int size() {
+        ResourceCollection next = successor;
+        return next != null ? next.size() : items.size();
+    }
+
+    public long bytes() {
+        ResourceCollection next = successor;
+        return next != null ? next.bytes() : bytes.get();
+    }
+
+    /**
+     * Copy the items, in write order, into a new collection with the given config and pass every
+     * later call on to it
+     */
+    ResourceCollection rebuild(Config config) {
+        Lock lock = retirement.writeLock();
+        lock.lock();
+        try {
+            if (successor != null) {
+                return successor.rebuild(config);
+            }
+            ResourceCollection created = new ResourceCollection(name, config);
+            for (Item item : all()) {
+                created.put(item.id, item.node, item.json);
+            }
+            successor = created;
+            return created;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Store the item, replacing any previous one; returns the previous item or null
+     */
+    public Item put(String id, ObjectNode node, byte[] json) {
+        Lock lock = retirement.readLock();
+        lock.lock();
+        try {
+            return successor != null ? successor.put(id, node, json) : doPut(id, node, json);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Item doPut(String id, ObjectNode node, byte[] json) {
+        Item created = new Item(id, sequence.incrementAndGet(), node, json);
+        Item[] previous = new Item[1];
+        items.compute(id, (key, old) -> {
+            previous[0] = old;
+            if (old != null) {
+                detach(old);
+            }
+            attach(created);
+            return created;
+        });
+        bytes.addAndGet(json.length - (previous[0] != null ? previous[0].json.length : 0));
+        evict();
+        return previous[0];
+    }
+
+    /**
+     * Store the item only if no item has this id yet; returns false if one exists
+     */
+    public boolean create(String id, ObjectNode node, byte[] json) {
+        Lock lock = retirement.readLock();
+        lock.lock();
+        try {
+            return successor != null ? successor.create(id, node, json) : doCreate(id, node, json);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean doCreate(String id, ObjectNode node, byte[] json) {
+        Item created = new Item(id, sequence.incrementAndGet(), node, json);
+        boolean[] added = new boolean[1];
+        items.compute(id, (key, old) -> {
+            if (old != null) {
+                return old;
+            }
+            attach(created);
+            added[0] = true;
+            return created;
+        });
+        if (added[0]) {
+            bytes.addAndGet(json.length);
+            evict();
+        }
+        return added[0];
+    }
+
+    /**
+     * Replace {@code expected} unless another write got there first; for read-modify-write updates
+     */
+    public boolean replace(Item expected, ObjectNode node, byte[] json) {
+        Lock lock = retirement.readLock();
+        lock.lock();
+        try {
+            // An item read before a rebuild is not in the new collection, so the caller reads again
+            return successor != null ? successor.replace(expected, node, json) : doReplace(expected, node, json);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean doReplace(Item expected, ObjectNode node, byte[] json) {
+        Item updated = new Item(expected.id, sequence.incrementAndGet(), node, json);
+        boolean[] replaced = new boolean[1];
+        items.computeIfPresent(expected.id, (key, old) -> {
+            if (old != expected) {
+                return old;
+            }
+            detach(old);
+            attach(updated);
+            replaced[0] = true;
+            return updated;
+        });
+        if (replaced[0]) {
+            bytes.addAndGet(json.length - expected.json.length);
+            evict();
+        }
+        return replaced[0];
+    }
+
+    public Item remove(String id) {
+        Lock lock = retirement.readLock();
+        lock.lock();
+        try {
+            return successor != null ? successor.remove(id) : doRemove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Item doRemove(String id) {
+        Item[] removed = new Item[1];
+        items.computeIfPresent(id, (key, old) -> {
+            detach(old);
+            removed[0] = old;
+            return null;
+        });
+        if (removed[0] != null) {
+            bytes.addAndGet(-removed[0].json.length);
+        }
+        return removed[0];
+    }
+
+    public void clear() {
+        ResourceCollection next = successor;
+        if (next != null) {
+            next.clear();
+            return;
+        }
+        for (String id : new ArrayList<>(items.keySet())) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Items whose fields equal all the given values, in write order. Indexed fields narrow the
+     * candidates; the rest are checked item by item.
+     */
+    public Page query(Map<String, String> filters, int offset, int limit) {
+        ResourceCollection next = successor;
+        if (next != null) {
+            return next.query(filters, offset, limit);
+        }
+        Set<String> candidates = null;
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            ConcurrentMap<String, Set<String>> index = indexes.get(filter.getKey());
+            if (index != null) {
+                Set<String> ids = index.getOrDefault(filter.getValue(), Collections.emptySet());
+                if (candidates == null || ids.size() < candidates.size()) {
+                    candidates = ids;
+                }
+            }
+        }
+
+        Iterable<Item> source;
+        if (candidates != null) {
+            List<Item> narrowed = new ArrayList<>(candidates.size());
+            for (String id : candidates) {
+                Item item = items.get(id);
+                if (item != null) {
+                    narrowed.add(item);
+                }
+            }
+            narrowed.sort(Comparator.comparingLong(item -> item.seq));
+            source = narrowed;
+        } else {
+            source = this::inOrder;
+        }
+
+        int total = 0;
+        List<Item> page = new ArrayList<>(Math.min(limit, 64));
+        for (Item item : source) {
+            // Indexed filters are checked again: the index may have moved on since it was read
+            if (!matches(item.node, filters)) {
+                continue;
+            }
+            if (total >= offset && page.size() < limit) {
+                page.add(item);
+            }
+            total++;
+        }
+        return new Page(page, total);
+    }
+
+    /**
+     * Every item in write order, for snapshots
+     */
+    public List<Item> all() {
+        ResourceCollection next = successor;
+        if (next != null) {
+            return next.all();
+        }
+        List<Item> all = new ArrayList<>(items.size());
+        inOrder().forEachRemaining(all::add);
+        return all;
+    }
+
+    private Iterator<Item> inOrder() {
+        // An item rewritten while iterating may briefly be listed under both sequences; keep the live one
+        return order.entrySet().stream()
+                .map(entry -> {
+                    Item item = items.get(entry.getValue());
+                    return item != null && item.seq == entry.getKey() ? item : null;
+                })
+                .filter(Objects::nonNull)
+                .iterator();
+    }
+
+    private static boolean matches(ObjectNode node, Map<String, String> filters) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            String value = indexValue(node.get(filter.getKey()));
+            if (value == null || !value.equals(filter.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String indexValue(JsonNode value) {
+        // Only scalars are indexed and filterable
+        return value != null && value.isValueNode() && !value.isNull() ? value.asText() : null;
+    }
+
+    // attach/detach run inside compute() on the item's id, so they never race for the same item.
+    // Index sets are shared by every id with the same value, so they are only changed inside
+    // compute() on the value: an add can never land in a set a concurrent detach just dropped.
+
+    private void attach(Item item) {
+        order.put(item.seq, item.id);
+        for (Map.Entry<String, ConcurrentMap<String, Set<String>>> index : indexes.entrySet()) {
+            String value = indexValue(item.node.get(index.getKey()));
+            if (value != null) {
+                index.getValue().compute(value, (v, ids) -> {
+                    if (ids == null) {
+                        ids = ConcurrentHashMap.newKeySet();
+                    }
+                    ids.add(item.id);
+                    return ids;
+                });
+            }
+        }
+    }
+
+    private void detach(Item item) {
+        order.remove(item.seq);
+        for (Map.Entry<String, ConcurrentMap<String, Set<String>>> index : indexes.entrySet()) {
+            String value = indexValue(item.node.get(index.getKey()));
+            if (value != null) {
+                index.getValue().computeIfPresent(value, (v, ids) -> {
+                    ids.remove(item.id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    private void evict() {
+        while (items.size() > config.getMaxItems() || bytes.get() > config.getMaxBytes()) {
+            Map.Entry<Long, String> eldest = order.pollFirstEntry();
+            if (eldest == null) {
+                return;
+            }
+            long seq = eldest.getKey();
+            Item[] evicted = new Item[1];
+            items.computeIfPresent(eldest.getValue(), (key, old) -> {
+                if (old.seq != seq) {
+                    return old; // Rewritten since; its newer sequence is still in the order map
+                }
+                detach(old);
+                evicted[0] = old;
+                return null;
+            });
+            if (evicted[0] != null) {
+                bytes.addAndGet(-evicted[0].json.length);
+            }
+        }
+    }
+
+    /**
+     * A stored object and its serialized form, which reads return as is
+     */
+    public static final class Item {
+        @Getter
+        private final String id;
+        private final long seq;
+        @Getter
+        private final ObjectNode node; // Never modified once stored
+        @Getter
+        private final byte[] json;
+
+        private Item(String id, long seq, ObjectNode node, byte[] json) {
+            this.id = id;
+            this.seq = seq;
+            this.node = node;
+            this.json = json;
+        }
+    }
+
+    /**
+     * One page of a query and the number of items matching it overall
+     */
+    public static final class Page {
+        @Getter
+        private final List<Item> items;
+        @Getter
+        private final int total;
+
+        private Page(List<Item> items, int total) {
+            this.items = items;
+            this.total = total;
+        }
+    }
+
+    /**
+     * How a collection is keyed, indexed and bounded
+     */
+    @Getter
+    public static final class Config {
+        private final String idField;
+        private final Set<String> indexes;
+        private final int maxItems;
+        private final long maxBytes;
+
+        public Config(String idField, Set<String> indexes, int maxItems, long maxBytes) {
+            this.idField = idField;
+            this.indexes = indexes;
+            this.maxItems = maxItems;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Config)) {
+                return false;
+            }
+            Config other = (Config) o;
+            return idField.equals(other.idField) && indexes.equals(other.indexes) && maxItems == other.maxItems
+                    && maxBytes == other.maxBytes;
+        }
+
+        @Override
+        public int hashCode() {
+            return idField.hashCode() * 31 + indexes.hashCode();
+        }
+    }
+}
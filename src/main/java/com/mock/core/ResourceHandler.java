@@ -0,0 +1,293 @@
+package com.mock.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mock.model.MockRule;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Serves resource-mode rules as a REST collection backed by the service's {@link ResourceStore}:
+ * GET lists (with {@code offset}/{@code limit} or {@code page}/{@code size} and field filters from
+ * the other query parameters) or fetches one item, POST creates, PUT replaces, PATCH merges top-level
+ * fields and DELETE removes one item or clears the collection. Items are returned exactly as stored.
+ */
+@Component
+public class ResourceHandler {
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    // PATCH retries when a concurrent write replaced the item it was merged into
+    private static final int MAX_PATCH_ATTEMPTS = 16;
+    private static final String ALLOW = "GET, HEAD, POST, PUT, PATCH, DELETE";
+
+    private final ResourceStores stores;
+    private final ObjectMapper objectMapper;
+
+    public ResourceHandler(ResourceStores stores, ObjectMapper objectMapper) {
+        this.stores = stores;
+        this.objectMapper = objectMapper;
+    }
+
+    public void handle(HttpServletRequest req, HttpServletResponse resp, CompiledRule compiled, RequestBody body,
+            String serviceId) throws IOException {
+        MockRule rule = compiled.getRule();
+        String uri = req.getRequestURI();
+        String[] segments = StringUtils.tokenizeToStringArray(uri, "/");
+        int depth = compiled.getResourceDepth();
+        if (segments.length < depth || segments.length > depth + 1) {
+            error(resp, HttpServletResponse.SC_NOT_FOUND, "No resource at " + uri);
+            return;
+        }
+
+        String collectionPath = "/" + String.join("/", List.of(segments).subList(0, depth));
+        String id = segments.length > depth ? UriUtils.decode(segments[depth], StandardCharsets.UTF_8) : null;
+        String name = StringUtils.hasText(rule.getResourceCollection()) ? rule.getResourceCollection() : collectionPath;
+
+        ResourceStore store = stores.forService(serviceId);
+        ResourceCollection collection = store.collection(name, compiled.getResourceConfig());
+        if (collection == null) {
+            error(resp, 507, "Too many collections, at most " + ResourceStore.MAX_COLLECTIONS);
+            return;
+        }
+
+        String[] names = compiled.getHeaderNames();
+        String[] values = compiled.getHeaderValues();
+        for (int i = 0; i < names.length; i++) {
+            resp.addHeader(names[i], values[i]);
+        }
+        if (!compiled.isContentTypeHeader()) {
+            resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        }
+
+        switch (req.getMethod().toUpperCase()) {
+            case "GET", "HEAD" -> {
+                if (id == null) {
+                    list(req, resp, collection);
+                } else {
+                    ResourceCollection.Item item = collection.get(id);
+                    if (item == null) {
+                        error(resp, HttpServletResponse.SC_NOT_FOUND, "No item " + id + " in " + name);
+                    } else {
+                        write(resp, HttpServletResponse.SC_OK, item.getJson());
+                    }
+                }
+            }
+            case "POST" -> {
+                if (id != null) {
+                    notAllowed(resp);
+                } else {
+                    create(resp, store, collection, body, collectionPath);
+                }
+            }
+            case "PUT" -> {
+                if (id == null) {
+                    notAllowed(resp);
+                } else {
+                    replace(resp, store, collection, body, id);
+                }
+            }
+            case "PATCH" -> {
+                if (id == null) {
+                    notAllowed(resp);
+                } else {
+                    patch(resp, store, collection, body, id);
+                }
+            }
+            case "DELETE" -> {
+                if (id == null) {
+                    collection.clear();
+                    resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+                } else if (collection.remove(id) != null) {
+                    resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+                } else {
+                    error(resp, HttpServletResponse.SC_NOT_FOUND, "No item " + id + " in " + name);
+                }
+            }
+            default -> notAllowed(resp);
+        }
+    }
+
+    private void list(HttpServletRequest req, HttpServletResponse resp, ResourceCollection collection)
+            throws IOException {
+        Map<String, String> filters = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> param : req.getParameterMap().entrySet()) {
+            switch (param.getKey()) {
+                case "offset", "limit", "page", "size" -> { }
+                default -> filters.put(param.getKey(), param.getValue()[0]);
+            }
+        }
+
+        int limit;
+        int offset;
+        if (req.getParameter("page") != null) {
+            // Pages count from 1
+            limit = intParam(req, "size", DEFAULT_LIMIT);
+            limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+            offset = (Math.max(1, intParam(req, "page", 1)) - 1) * limit;
+        } else {
+            limit = Math.max(1, Math.min(intParam(req, "limit", DEFAULT_LIMIT), MAX_LIMIT));
+            offset = Math.max(0, intParam(req, "offset", 0));
+        }
+
+        ResourceCollection.Page page = collection.query(filters, offset, limit);
+        resp.setHeader("X-Total-Count", String.valueOf(page.getTotal()));
+
+        // The stored JSON is copied out as is: listing never re-serializes an item
+        List<ResourceCollection.Item> items = page.getItems();
+        int length = 2 + Math.max(0, items.size() - 1);
+        for (ResourceCollection.Item item : items) {
+            length += item.getJson().length;
+        }
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentLength(length);
+        OutputStream out = resp.getOutputStream();
+        out.write('[');
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(items.get(i).getJson());
+        }
+        out.write(']');
+    }
+
+    private void create(HttpServletResponse resp, ResourceStore store, ResourceCollection collection,
+            RequestBody body, String collectionPath) throws IOException {
+        ObjectNode node = readObject(resp, body);
+        if (node == null) {
+            return;
+        }
+        String idField = collection.getConfig().getIdField();
+        String id = ResourceStore.idOf(node, idField);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            node.put(idField, id);
+        }
+        byte[] json = store.toJson(node);
+        if (!collection.create(id, node, json)) {
+            error(resp, HttpServletResponse.SC_CONFLICT, "Item " + id + " already exists in " + collection.getName());
+            return;
+        }
+        resp.setHeader(HttpHeaders.LOCATION,
+                collectionPath + "/" + UriUtils.encodePathSegment(id, StandardCharsets.UTF_8));
+        write(resp, HttpServletResponse.SC_CREATED, json);
+    }
+
+    private void replace(HttpServletResponse resp, ResourceStore store, ResourceCollection collection,
+            RequestBody body, String id) throws IOException {
+        ObjectNode node = readObject(resp, body);
+        if (node == null) {
+            return;
+        }
+        String idField = collection.getConfig().getIdField();
+        // The path decides the id, whatever the body says
+        if (!id.equals(ResourceStore.idOf(node, idField))) {
+            node.put(idField, id);
+        }
+        byte[] json = store.toJson(node);
+        ResourceCollection.Item previous = collection.put(id, node, json);
+        write(resp, previous != null ? HttpServletResponse.SC_OK : HttpServletResponse.SC_CREATED, json);
+    }
+
+    private void patch(HttpServletResponse resp, ResourceStore store, ResourceCollection collection,
+            RequestBody body, String id) throws IOException {
+        ObjectNode changes = readObject(resp, body);
+        if (changes == null) {
+            return;
+        }
+        String idField = collection.getConfig().getIdField();
+        for (int attempt = 0; attempt < MAX_PATCH_ATTEMPTS; attempt++) {
+            ResourceCollection.Item current = collection.get(id);
+            if (current == null) {
+                error(resp, HttpServletResponse.SC_NOT_FOUND, "No item " + id + " in " + collection.getName());
+                return;
+            }
+            // Stored nodes are shared with readers, so merge into a copy
+            ObjectNode merged = current.getNode().deepCopy();
+            changes.fields().forEachRemaining(field -> {
+                // As in JSON merge patch, null removes the field
+                if (field.getValue().isNull()) {
+                    merged.remove(field.getKey());
+                } else {
+                    merged.set(field.getKey(), field.getValue());
+                }
+            });
+            merged.set(idField, current.getNode().get(idField));
+            byte[] json = store.toJson(merged);
+            if (collection.replace(current, merged, json)) {
+                write(resp, HttpServletResponse.SC_OK, json);
+                return;
+            }
+        }
+        error(resp, HttpServletResponse.SC_CONFLICT, "Item " + id + " is being modified concurrently");
+    }
+
+    /**
+     * The request body as a JSON object, or null once an error response has been written
+     */
+    private ObjectNode readObject(HttpServletResponse resp, RequestBody body) throws IOException {
+        byte[] bytes = body.bytes();
+        if (bytes == null) {
+            // Spilled to disk: far beyond what the store should hold
+            error(resp, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request body too large for a resource");
+            return null;
+        }
+        JsonNode node;
+        try {
+            node = bytes.length > 0 ? objectMapper.readTree(bytes) : null;
+        } catch (JsonProcessingException e) {
+            error(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid JSON: " + e.getOriginalMessage());
+            return null;
+        }
+        if (!(node instanceof ObjectNode)) {
+            error(resp, HttpServletResponse.SC_BAD_REQUEST, "Expected a JSON object");
+            return null;
+        }
+        return (ObjectNode) node;
+    }
+
+    private static int intParam(HttpServletRequest req, String name, int defaultValue) {
+        String value = req.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static void write(HttpServletResponse resp, int status, byte[] json) throws IOException {
+        resp.setStatus(status);
+        resp.setContentLength(json.length);
+        resp.getOutputStream().write(json);
+    }
+
+    private static void notAllowed(HttpServletResponse resp) throws IOException {
+        resp.setHeader(HttpHeaders.ALLOW, ALLOW);
+        error(resp, HttpServletResponse.SC_METHOD_NOT_ALLOWED, "Method not allowed on this resource");
+    }
+
+    private static void error(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        resp.getWriter().write(message);
+    }
+}
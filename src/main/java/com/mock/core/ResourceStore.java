@@ -0,0 +1,132 @@
+package com.mock.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The collections of one resource-mode service, created by the first request that addresses them.
+ * Only lives in memory; {@link #snapshot()} and {@link #restore} move the contents in and out.
+ */
+public class ResourceStore {
+
+    // Every distinct collection path creates one, so cap how many a client can open
+    static final int MAX_COLLECTIONS = 1024;
+
+    static final ResourceCollection.Config DEFAULT_CONFIG =
+            new ResourceCollection.Config("id", Set.of(), 10_000, 64L * 1024 * 1024);
+
+    private final Map<String, ResourceCollection> collections = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+
+    ResourceStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The named collection, created with the given config or rebuilt if it was created with another
+     * one (e.g. the rule's indexes were edited); null when the store already holds too many collections
+     */
+    public ResourceCollection collection(String name, ResourceCollection.Config config) {
+        ResourceCollection collection = collections.get(name);
+        if (collection != null && collection.getConfig().equals(config)) {
+            return collection;
+        }
+        if (collection == null && collections.size() >= MAX_COLLECTIONS) {
+            return null;
+        }
+        return collections.compute(name, (key, old) -> {
+            if (old != null && old.getConfig().equals(config)) {
+                return old;
+            }
+            return old != null ? old.rebuild(config) : new ResourceCollection(key, config);
+        });
+    }
+
+    public ResourceCollection find(String name) {
+        return collections.get(name);
+    }
+
+    public void clear() {
+        collections.clear();
+    }
+
+    /**
+     * Item counts and JSON bytes per collection
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (ResourceCollection collection : collections.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("items", collection.size());
+            entry.put("bytes", collection.bytes());
+            entry.put("indexes", collection.getConfig().getIndexes());
+            stats.put(collection.getName(), entry);
+        }
+        return stats;
+    }
+
+    /**
+     * Every collection's items in write order
+     */
+    public Map<String, List<ObjectNode>> snapshot() {
+        Map<String, List<ObjectNode>> snapshot = new LinkedHashMap<>();
+        for (ResourceCollection collection : collections.values()) {
+            List<ResourceCollection.Item> items = collection.all();
+            List<ObjectNode> nodes = new ArrayList<>(items.size());
+            for (ResourceCollection.Item item : items) {
+                nodes.add(item.getNode());
+            }
+            snapshot.put(collection.getName(), nodes);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Replace the contents of the given collections. Collections keep their config, new ones get
+     * the default until a rule addresses them.
+     */
+    public void restore(Map<String, List<ObjectNode>> snapshot) {
+        for (Map.Entry<String, List<ObjectNode>> entry : snapshot.entrySet()) {
+            ResourceCollection existing = collections.get(entry.getKey());
+            ResourceCollection collection = collection(entry.getKey(),
+                    existing != null ? existing.getConfig() : DEFAULT_CONFIG);
+            if (collection == null) {
+                throw new IllegalStateException("Too many collections, at most " + MAX_COLLECTIONS);
+            }
+            collection.clear();
+            String idField = collection.getConfig().getIdField();
+            for (ObjectNode node : entry.getValue()) {
+                String id = idOf(node, idField);
+                if (id == null) {
+                    id = UUID.randomUUID().toString();
+                    node.put(idField, id);
+                }
+                collection.put(id, node, toJson(node));
+            }
+        }
+    }
+
+    static String idOf(ObjectNode node, String idField) {
+        JsonNode id = node.get(idField);
+        return id != null && id.isValueNode() && !id.isNull() && !id.asText().isEmpty() ? id.asText() : null;
+    }
+
+    byte[] toJson(ObjectNode node) {
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
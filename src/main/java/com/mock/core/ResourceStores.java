@@ -0,0 +1,34 @@
+package com.mock.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resource store of every service, created when first used
+ */
+@Component
+public class ResourceStores {
+
+    private final Map<String, ResourceStore> stores = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+
+    public ResourceStores(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public ResourceStore forService(String serviceId) {
+        ResourceStore store = stores.get(serviceId);
+        return store != null ? store : stores.computeIfAbsent(serviceId, id -> new ResourceStore(objectMapper));
+    }
+
+    public ResourceStore find(String serviceId) {
+        return stores.get(serviceId);
+    }
+
+    public void remove(String serviceId) {
+        stores.remove(serviceId);
+    }
+}
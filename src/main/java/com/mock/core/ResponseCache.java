@@ -0,0 +1,152 @@
+package com.mock.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-rule cache of upstream responses for forward mode: entries expire after a TTL and the
+ * least recently used ones are evicted to stay within a byte budget.
+ * <p>
+ * Concurrent misses for one key are coalesced: the first caller becomes the leader and
+ * fetches upstream, the others wait for its response instead of each calling upstream.
+ * The cache lives on the {@link CompiledRule}. Recompiling the service hands it to the new one
+ * unless the rule's forward URL or cache settings changed, which starts a fresh cache.
+ */
+public class ResponseCache {
+
+    private final long ttlNanos;
+    private final long maxBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry; guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final Map<String, CompletableFuture<CapturedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ResponseCache(long ttlMs, long maxBytes) {
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * A fresh cached response, or null on a miss
+     */
+    public CapturedResponse get(String key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.storedAt < ttlNanos) {
+                    hits.increment();
+                    return entry.response;
+                }
+                entries.remove(key);
+                bytes -= entry.size;
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Register as the leader for a missing key.
+     *
+     * @return null if the caller is now the leader and must call {@link #complete}, otherwise the
+     *         leader's pending response to wait on
+     */
+    public CompletableFuture<CapturedResponse> lead(String key, CompletableFuture<CapturedResponse> mine) {
+        CompletableFuture<CapturedResponse> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * Publish the leader's response (null if it failed) to waiting callers and store it if cacheable
+     */
+    public void complete(String key, CompletableFuture<CapturedResponse> mine, CapturedResponse response) {
+        try {
+            if (response != null && response.getStatus() >= 200 && response.getStatus() < 300) {
+                put(key, response);
+            }
+        } finally {
+            inFlight.remove(key, mine);
+            mine.complete(response);
+        }
+    }
+
+    public int maxEntryBytes() {
+        return (int) Math.min(maxBytes, Integer.MAX_VALUE);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", bytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+
+    private synchronized void put(String key, CapturedResponse response) {
+        long size = sizeOf(key, response);
+        if (size > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(response, size, System.nanoTime()));
+        if (previous != null) {
+            bytes -= previous.size;
+        }
+        bytes += size;
+
+        Iterator<Entry> lru = entries.values().iterator();
+        while (bytes > maxBytes && lru.hasNext()) {
+            Entry evicted = lru.next();
+            lru.remove();
+            bytes -= evicted.size;
+            evictions.increment();
+        }
+    }
+
+    private static long sizeOf(String key, CapturedResponse response) {
+        long size = key.length() * 2L + response.getBody().remaining();
+        for (String[] header : response.getHeaders()) {
+            size += (header[0].length() + header[1].length()) * 2L;
+        }
+        return size;
+    }
+
+    private static final class Entry {
+        private final CapturedResponse response;
+        private final long size;
+        private final long storedAt;
+
+        private Entry(CapturedResponse response, long size, long storedAt) {
+            this.response = response;
+            this.size = size;
+            this.storedAt = storedAt;
+        }
+    }
+}
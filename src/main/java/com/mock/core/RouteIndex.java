@@ -0,0 +1,150 @@
+package com.mock.core;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Segment trie over a service's rules, bucketed by HTTP method.
+ * <p>
+ * Literal path segments are followed exactly, any other single-segment pattern
+ * ({@code *}, {@code {id}}, {@code user-*.json}) goes through a shared wildcard
+ * branch, and a {@code **} segment parks the rule on the node where it appears.
+ * AntPathMatcher also lets a trailing {@code *} match the empty segment after a trailing
+ * slash ({@code /a/*} matches {@code /a/}), so such paths pick up those rules too.
+ * A lookup only yields candidates; callers still confirm them with
+ * {@link org.springframework.util.AntPathMatcher} so matching semantics are
+ * unchanged. Candidates come back in rule declaration order.
+ */
+public final class RouteIndex {
+
+    private static final String ANY_METHOD = "";
+
+    private final Map<String, Node> roots = new HashMap<>();
+
+    private RouteIndex(List<CompiledRule> rules) {
+        for (int i = 0; i < rules.size(); i++) {
+            CompiledRule rule = rules.get(i);
+            String method = StringUtils.hasText(rule.getRule().getMethod())
+                    ? rule.getRule().getMethod().toUpperCase(Locale.ROOT)
+                    : ANY_METHOD;
+            insert(roots.computeIfAbsent(method, m -> new Node()), new Entry(i, rule));
+        }
+    }
+
+    public static RouteIndex build(List<CompiledRule> rules) {
+        return new RouteIndex(rules == null ? Collections.emptyList() : rules);
+    }
+
+    /**
+     * Rules that may match the request, in declaration order.
+     */
+    public List<CompiledRule> candidates(String method, String path) {
+        String[] segments = tokenize(path);
+        boolean trailingSlash = path.endsWith("/");
+        List<Entry> found = new ArrayList<>();
+
+        Node methodRoot = roots.get(method.toUpperCase(Locale.ROOT));
+        if (methodRoot != null) {
+            collect(methodRoot, segments, 0, trailingSlash, found);
+        }
+        Node anyRoot = roots.get(ANY_METHOD);
+        if (anyRoot != null) {
+            collect(anyRoot, segments, 0, trailingSlash, found);
+        }
+
+        if (found.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (found.size() > 1) {
+            found.sort((a, b) -> Integer.compare(a.order, b.order));
+        }
+        List<CompiledRule> result = new ArrayList<>(found.size());
+        int last = -1;
+        for (Entry entry : found) {
+            // A rule can be reached twice through literal and wildcard branches
+            if (entry.order != last) {
+                result.add(entry.rule);
+                last = entry.order;
+            }
+        }
+        return result;
+    }
+
+    private static void insert(Node root, Entry entry) {
+        String pattern = entry.rule.getRule().getUrlPattern();
+        if (!StringUtils.hasText(pattern)) {
+            // No URL pattern means the rule matches every path
+            root.deep.add(entry);
+            return;
+        }
+
+        Node node = root;
+        for (String segment : tokenize(pattern)) {
+            if ("**".equals(segment)) {
+                node.deep.add(entry);
+                return;
+            }
+            if (isPattern(segment)) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+            } else {
+                node = node.literals.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        node.terminal.add(entry);
+    }
+
+    private static void collect(Node node, String[] segments, int depth, boolean trailingSlash,
+            List<Entry> found) {
+        found.addAll(node.deep);
+        if (depth == segments.length) {
+            found.addAll(node.terminal);
+            if (trailingSlash && node.wildcard != null) {
+                // The empty segment after the slash: only a plain * accepts it, the matcher decides
+                found.addAll(node.wildcard.terminal);
+            }
+            return;
+        }
+        Node literal = node.literals.get(segments[depth]);
+        if (literal != null) {
+            collect(literal, segments, depth + 1, trailingSlash, found);
+        }
+        if (node.wildcard != null) {
+            collect(node.wildcard, segments, depth + 1, trailingSlash, found);
+        }
+    }
+
+    private static boolean isPattern(String segment) {
+        return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0;
+    }
+
+    private static String[] tokenize(String path) {
+        // Same tokenization as AntPathMatcher: empty segments are dropped
+        return StringUtils.tokenizeToStringArray(path, "/", false, true);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node wildcard;
+        private final List<Entry> terminal = new ArrayList<>(1);
+        private final List<Entry> deep = new ArrayList<>(1);
+    }
+
+    private static final class Entry {
+        private final int order;
+        private final CompiledRule rule;
+
+        private Entry(int order, CompiledRule rule) {
+            this.order = order;
+            this.rule = rule;
+        }
+    }
+}
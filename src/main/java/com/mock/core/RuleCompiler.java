@@ -0,0 +1,242 @@
+package com.mock.core;
+
+import com.mock.model.MockRule;
+import com.mock.model.MockServiceConfig;
+import com.mock.service.GeneratorPlan;
+import com.mock.service.MockDataGenerator;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+@Component
+public class RuleCompiler {
+
+    // Pre-generated variants are held in memory for the lifetime of the rule
+    static final int MAX_GENERATE_VARIANTS = 1000;
+    // Combined size of a rule's pre-generated variants
+    static final long MAX_VARIANT_BYTES = 64L * 1024 * 1024;
+
+    // MIXED compiles hot expressions to bytecode and falls back to interpretation if that fails
+    private final ExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, RuleCompiler.class.getClassLoader()));
+    private final TemplateParserContext templateContext = new TemplateParserContext();
+    private final AtomicLong versions = new AtomicLong();
+    private final MockDataGenerator generator;
+
+    public RuleCompiler(MockDataGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Compile all rules of a service, failing on the first invalid one
+     */
+    public RuleSnapshot compile(MockServiceConfig config) {
+        return compile(config, null);
+    }
+
+    /**
+     * Compile all rules of a service, keeping the response cache of every rule in {@code previous}
+     * (the snapshot being replaced, may be null) whose forward target and cache settings are unchanged.
+     * Resource-mode rules addressing the same collection share one merged collection config.
+     */
+    public RuleSnapshot compile(MockServiceConfig config, RuleSnapshot previous) {
+        Map<String, CompiledRule> previousRules = new HashMap<>();
+        if (previous != null) {
+            for (CompiledRule rule : previous.getRules()) {
+                if (rule.getCache() != null && rule.getRule().getId() != null) {
+                    previousRules.put(rule.getRule().getId(), rule);
+                }
+            }
+        }
+        List<MockRule> rules = config.getRules() != null ? config.getRules() : Collections.emptyList();
+        Map<String, ResourceCollection.Config> collections = mergeCollections(rules);
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (MockRule rule : rules) {
+            CompiledRule before = rule.getId() != null ? previousRules.get(rule.getId()) : null;
+            ResponseCache cache = before != null && sameCache(before.getRule(), rule) ? before.getCache() : null;
+            compiled.add(compile(rule, cache, collections.get(CompiledRule.collectionKey(rule))));
+        }
+        return new RuleSnapshot(versions.incrementAndGet(), config, compiled);
+    }
+
+    /**
+     * Compile a single rule
+     */
+    public CompiledRule compile(MockRule rule) {
+        return compile(rule, null, null);
+    }
+
+    private CompiledRule compile(MockRule rule, ResponseCache cache, ResourceCollection.Config resourceConfig) {
+        Pattern bodyPattern = null;
+        if (StringUtils.hasText(rule.getBodyMatch())) {
+            try {
+                bodyPattern = Pattern.compile(rule.getBodyMatch());
+            } catch (Exception e) {
+                throw new InvalidRuleException("Invalid bodyMatch regex in rule " + describe(rule) + ": "
+                        + e.getMessage(), e);
+            }
+        }
+
+        Expression template = null;
+        String body = rule.getResponseBody();
+        if (body != null && body.contains("#{")) {
+            try {
+                template = parser.parseExpression(body, templateContext);
+            } catch (Exception e) {
+                throw new InvalidRuleException("Invalid response template in rule " + describe(rule) + ": "
+                        + e.getMessage(), e);
+            }
+        }
+
+        LatencySampler latency;
+        try {
+            latency = LatencySampler.of(rule);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRuleException("Invalid latency profile in rule " + describe(rule) + ": "
+                    + e.getMessage(), e);
+        }
+
+        GeneratorPlan plan = null;
+        byte[][] variants = null;
+        if ("generate".equalsIgnoreCase(rule.getMode())) {
+            if (rule.getResponseSchema() == null) {
+                throw new InvalidRuleException("Rule " + describe(rule) + " is in generate mode but has no responseSchema");
+            }
+            if (rule.getGenerateVariants() < 0 || rule.getGenerateVariants() > MAX_GENERATE_VARIANTS) {
+                throw new InvalidRuleException("generateVariants of rule " + describe(rule) + " must be between 0 and "
+                        + MAX_GENERATE_VARIANTS);
+            }
+            try {
+                plan = generator.plan(rule.getResponseSchema());
+                variants = pregenerate(plan, rule);
+            } catch (RuntimeException | IOException e) {
+                throw new InvalidRuleException("Invalid response schema in rule " + describe(rule) + ": "
+                        + e.getMessage(), e);
+            }
+        }
+
+        if ("resource".equalsIgnoreCase(rule.getMode())) {
+            if (!StringUtils.hasText(rule.getResourceIdField())) {
+                throw new InvalidRuleException("Rule " + describe(rule) + " is in resource mode but has no resourceIdField");
+            }
+            if (rule.getResourceMaxItems() < 1 || rule.getResourceMaxBytes() < 1) {
+                throw new InvalidRuleException("resourceMaxItems and resourceMaxBytes of rule " + describe(rule)
+                        + " must be positive");
+            }
+        }
+
+        return new CompiledRule(rule, bodyPattern, template, latency, plan, variants, cache, resourceConfig);
+    }
+
+    /**
+     * One config per collection the resource-mode rules address: the union of their indexes and the
+     * largest of their limits. A collection whose rules disagree would otherwise be rebuilt whenever
+     * requests alternate between them.
+     */
+    private static Map<String, ResourceCollection.Config> mergeCollections(List<MockRule> rules) {
+        Map<String, ResourceCollection.Config> merged = new HashMap<>();
+        Map<String, MockRule> firstRule = new HashMap<>();
+        for (MockRule rule : rules) {
+            String key = CompiledRule.collectionKey(rule);
+            // Rules with a blank id field fail their own validation
+            if (key == null || !StringUtils.hasText(rule.getResourceIdField())) {
+                continue;
+            }
+            ResourceCollection.Config own = CompiledRule.resourceConfigOf(rule);
+            ResourceCollection.Config other = merged.get(key);
+            if (other == null) {
+                merged.put(key, own);
+                firstRule.put(key, rule);
+                continue;
+            }
+            if (!other.getIdField().equals(own.getIdField())) {
+                throw new InvalidRuleException("Rules " + describe(firstRule.get(key)) + " and " + describe(rule)
+                        + " share collection " + key + " but use different resourceIdFields");
+            }
+            Set<String> indexes = new HashSet<>(other.getIndexes());
+            indexes.addAll(own.getIndexes());
+            merged.put(key, new ResourceCollection.Config(own.getIdField(), Set.copyOf(indexes),
+                    Math.max(other.getMaxItems(), own.getMaxItems()), Math.max(other.getMaxBytes(), own.getMaxBytes())));
+        }
+        return merged;
+    }
+
+    // Cached responses stay valid as long as they come from the same upstream and are keyed the same way
+    private static boolean sameCache(MockRule before, MockRule after) {
+        return "forward".equalsIgnoreCase(after.getMode())
+                && Objects.equals(before.getForwardUrl(), after.getForwardUrl())
+                && before.getCacheTtlMs() == after.getCacheTtlMs()
+                && before.getCacheMaxBytes() == after.getCacheMaxBytes()
+                && Objects.equals(before.getCacheKeyHeaders(), after.getCacheKeyHeaders());
+    }
+
+    private byte[][] pregenerate(GeneratorPlan plan, MockRule rule) throws IOException {
+        int count = rule.getGenerateVariants();
+        if (count == 0) {
+            return null;
+        }
+        byte[][] variants = new byte[count][];
+        BoundedOutputStream out = new BoundedOutputStream(MAX_VARIANT_BYTES);
+        for (int i = 0; i < count; i++) {
+            out.reset();
+            // With a seed, variant i is the same on every compile
+            generator.writeJson(plan, rule.getGenerateSeed() != null ? rule.getGenerateSeed() + i : null, out);
+            variants[i] = out.toByteArray();
+            out.budget -= variants[i].length;
+        }
+        return variants;
+    }
+
+    /**
+     * Fails as soon as the variants written so far exceed the budget, before they can fill the heap
+     */
+    private static final class BoundedOutputStream extends ByteArrayOutputStream {
+        private long budget;
+
+        private BoundedOutputStream(long budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        public void write(int b) {
+            check(1);
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            check(len);
+            super.write(b, off, len);
+        }
+
+        private void check(int len) {
+            if (count + (long) len > budget) {
+                throw new IllegalArgumentException("pre-generated variants exceed " + MAX_VARIANT_BYTES / (1024 * 1024)
+                        + " MB; use fewer variants or smaller arrays");
+            }
+        }
+    }
+
+    private static String describe(MockRule rule) {
+        return (rule.getMethod() != null ? rule.getMethod() : "*") + " "
+                + (rule.getUrlPattern() != null ? rule.getUrlPattern() : "/**");
+    }
+}
@@ -0,0 +1,52 @@
+package com.mock.core;
+
+import com.mock.model.MockRule;
+import lombok.Getter;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hits, status codes and per-phase latency of one rule
+ */
+@Getter
+public class RuleMetrics {
+
+    private final ServiceMetrics service;
+    private final String key;
+    private final String method;
+    private final String urlPattern;
+    private final LongAdder hits = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram template = new LatencyHistogram();
+    private final LatencyHistogram delay = new LatencyHistogram();
+    private final LatencyHistogram forward = new LatencyHistogram();
+
+    RuleMetrics(ServiceMetrics service, MockRule rule) {
+        this.service = service;
+        this.key = keyOf(rule);
+        this.method = rule.getMethod();
+        this.urlPattern = rule.getUrlPattern();
+    }
+
+    static String keyOf(MockRule rule) {
+        if (StringUtils.hasText(rule.getId())) {
+            return rule.getId();
+        }
+        return (rule.getMethod() != null ? rule.getMethod() : "*") + " "
+                + (rule.getUrlPattern() != null ? rule.getUrlPattern() : "/**");
+    }
+
+    /**
+     * Record a finished request served by this rule, on both the rule and its service
+     */
+    public void complete(int status, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        ServiceMetrics.countStatus(statuses, status);
+        total.recordNanos(elapsed);
+        service.complete(status, elapsed);
+    }
+}
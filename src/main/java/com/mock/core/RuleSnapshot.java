@@ -0,0 +1,47 @@
+package com.mock.core;
+
+import com.mock.model.MockServiceConfig;
+
+import java.util.List;
+
+/**
+ * Immutable, versioned view of a service's rules: the config they came from, the compiled
+ * rules and the route index over them. A running service reads the current snapshot on
+ * every request, and edits publish a new one instead of restarting the server.
+ */
+public class RuleSnapshot {
+
+    private final long version;
+    private final MockServiceConfig config;
+    private final List<CompiledRule> rules;
+    private final RouteIndex index;
+
+    RuleSnapshot(long version, MockServiceConfig config, List<CompiledRule> rules) {
+        this.version = version;
+        this.config = config;
+        this.rules = List.copyOf(rules);
+        this.index = RouteIndex.build(this.rules);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The config this snapshot was compiled from; treat as read-only.
+     */
+    public MockServiceConfig getConfig() {
+        return config;
+    }
+
+    public List<CompiledRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Rules that may match the request, in declaration order.
+     */
+    public List<CompiledRule> candidates(String method, String path) {
+        return index.candidates(method, path);
+    }
+}
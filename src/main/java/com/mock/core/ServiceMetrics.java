@@ -0,0 +1,59 @@
+package com.mock.core;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for one mock service, plus one {@link RuleMetrics} per rule.
+ * Rules are keyed by id (or method and pattern), so their numbers survive rule edits.
+ */
+@Getter
+public class ServiceMetrics {
+
+    private final String serviceId;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LatencyHistogram match = new LatencyHistogram();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final Map<String, RuleMetrics> rules = new ConcurrentHashMap<>();
+
+    public ServiceMetrics(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public RuleMetrics forRule(CompiledRule compiled) {
+        String key = RuleMetrics.keyOf(compiled.getRule());
+        RuleMetrics metrics = rules.get(key);
+        return metrics != null ? metrics : rules.computeIfAbsent(key, k -> new RuleMetrics(this, compiled.getRule()));
+    }
+
+    public Collection<RuleMetrics> allRules() {
+        return rules.values();
+    }
+
+    /**
+     * Record a finished request that no rule matched
+     */
+    public void unmatched(int status, long startNanos) {
+        unmatched.increment();
+        complete(status, System.nanoTime() - startNanos);
+    }
+
+    void complete(int status, long elapsedNanos) {
+        countStatus(statuses, status);
+        total.recordNanos(elapsedNanos);
+    }
+
+    static void countStatus(Map<Integer, LongAdder> statuses, int status) {
+        LongAdder counter = statuses.get(status);
+        if (counter == null) {
+            counter = statuses.computeIfAbsent(status, s -> new LongAdder());
+        }
+        counter.increment();
+    }
+}
@@ -0,0 +1,223 @@
+package com.mock.core;
+
+import com.mock.model.MockServiceConfig;
+import com.mock.service.SettingsService;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleState;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardThreadExecutor;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.boot.web.server.WebServerException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * One embedded Tomcat hosting every mock service started in shared mode.
+ * <p>
+ * Each service only adds a {@link Connector} on its port; a single routing servlet picks the
+ * service's {@link DispatcherServlet} by the local port the request arrived on. All connectors
+ * share one platform executor and one virtual-thread executor, so a service costs a socket
+ * and a poller rather than a whole server with its own thread pool.
+ */
+@Slf4j
+@Component
+public class SharedServerHost {
+
+    private final Map<Integer, Route> routes = new ConcurrentHashMap<>();
+    private final SettingsService settingsService;
+
+    private Tomcat tomcat;
+    private StandardThreadExecutor platformExecutor;
+    private VirtualThreadExecutor virtualExecutor;
+
+    public SharedServerHost(SettingsService settingsService) {
+        this.settingsService = settingsService;
+    }
+
+    /**
+     * Prepare a service for the shared server. Nothing is bound until the returned server is started.
+     */
+    public WebServer attach(MockServiceConfig config, DispatcherServlet servlet, boolean virtualThreads,
+            Consumer<Connector> customizer) {
+        return new SharedConnectorWebServer(config.getPort(), new Route(servlet, normalize(config.getContextPath())),
+                virtualThreads, customizer);
+    }
+
+    private synchronized Tomcat tomcat() throws Exception {
+        if (tomcat == null) {
+            Tomcat server = new Tomcat();
+            server.setBaseDir(Files.createTempDirectory("mock-shared-tomcat").toString());
+            server.getHost().setAutoDeploy(false);
+
+            platformExecutor = new StandardThreadExecutor();
+            platformExecutor.setName("mock-shared");
+            platformExecutor.setNamePrefix("mock-shared-");
+            platformExecutor.setMaxThreads(settingsService.getSettings().getSharedMaxThreads());
+            server.getService().addExecutor(platformExecutor);
+            virtualExecutor = new VirtualThreadExecutor("mock-shared-virtual-");
+
+            Context context = server.addContext("", null);
+            Wrapper wrapper = Tomcat.addServlet(context, "router", new PortRoutingServlet());
+            wrapper.setAsyncSupported(true);
+            context.addServletMappingDecoded("/*", "router");
+
+            // No connectors yet: they come and go with the services
+            server.start();
+            tomcat = server;
+            log.info("Started shared mock server host");
+        }
+        return tomcat;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (tomcat != null) {
+            try {
+                tomcat.stop();
+                tomcat.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to stop shared mock server host", e);
+            }
+            tomcat = null;
+        }
+    }
+
+    private static String normalize(String contextPath) {
+        if (contextPath == null || contextPath.isEmpty() || contextPath.equals("/")) {
+            return "";
+        }
+        return contextPath.endsWith("/") ? contextPath.substring(0, contextPath.length() - 1) : contextPath;
+    }
+
+    private static final class Route {
+        private final DispatcherServlet servlet;
+        private final String contextPath;
+
+        private Route(DispatcherServlet servlet, String contextPath) {
+            this.servlet = servlet;
+            this.contextPath = contextPath;
+        }
+
+        private boolean accepts(String uri) {
+            // Same visibility as a dedicated server deployed under the context path
+            return contextPath.isEmpty() || uri.equals(contextPath) || uri.startsWith(contextPath + "/");
+        }
+    }
+
+    private class PortRoutingServlet extends HttpServlet {
+
+        @Override
+        protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+            Route route = routes.get(req.getLocalPort());
+            if (route == null || !route.accepts(req.getRequestURI())) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            route.servlet.service(req, resp);
+        }
+    }
+
+    private class SharedConnectorWebServer implements WebServer {
+
+        private final int port;
+        private final Route route;
+        private final boolean virtualThreads;
+        private final Consumer<Connector> customizer;
+        private Connector connector;
+
+        private SharedConnectorWebServer(int port, Route route, boolean virtualThreads,
+                Consumer<Connector> customizer) {
+            this.port = port;
+            this.route = route;
+            this.virtualThreads = virtualThreads;
+            this.customizer = customizer;
+        }
+
+        @Override
+        public synchronized void start() throws WebServerException {
+            if (connector != null) {
+                return;
+            }
+            Tomcat server = null;
+            Connector created = null;
+            try {
+                server = tomcat();
+                created = new Connector("HTTP/1.1");
+                created.setPort(port);
+                created.getProtocolHandler().setExecutor(virtualThreads ? virtualExecutor : platformExecutor);
+                customizer.accept(created);
+
+                // Route first so the very first request on the new port finds its service
+                if (routes.putIfAbsent(port, route) != null) {
+                    created = null; // Never added, nothing to remove
+                    throw new IllegalStateException("Port " + port + " is already used by another mock service");
+                }
+                // Throws if the connector fails to start, e.g. on a taken port, but keeps it in the service
+                server.getService().addConnector(created);
+                if (created.getState() != LifecycleState.STARTED) {
+                    throw new IllegalStateException("Connector on port " + port + " failed to start");
+                }
+                connector = created;
+            } catch (Exception e) {
+                if (created != null && server != null) {
+                    discard(server, created);
+                }
+                routes.remove(port, route);
+                throw new WebServerException("Unable to add connector on port " + port, e);
+            }
+        }
+
+        private void discard(Tomcat server, Connector created) {
+            try {
+                // A no-op when the connector never made it into the service
+                server.getService().removeConnector(created);
+                created.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to discard connector on port {}", port, e);
+            }
+        }
+
+        @Override
+        public synchronized void stop() throws WebServerException {
+            if (connector == null) {
+                return;
+            }
+            Tomcat server;
+            synchronized (SharedServerHost.this) {
+                server = tomcat;
+            }
+            try {
+                // Null once shutdown() has destroyed the host along with every connector on it
+                if (server != null) {
+                    server.getService().removeConnector(connector);
+                    // Destroy releases the port; removal alone only stops accepting
+                    connector.destroy();
+                }
+            } catch (Exception e) {
+                throw new WebServerException("Unable to remove connector on port " + port, e);
+            } finally {
+                routes.remove(port, route);
+                connector = null;
+            }
+        }
+
+        @Override
+        public int getPort() {
+            return port;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.mock.dto;
+
+import lombok.Data;
+
+@Data
+public class BatchResult {
+    private String serviceId;
+    private String serviceName;
+    private String status; // "ok", "failed", "invalid", or "skipped" when another entry made the batch invalid
+    private String message;
+    private boolean running;
+    private long durationMs;
+
+    public static BatchResult of(String serviceId, String serviceName, String status, String message) {
+        BatchResult result = new BatchResult();
+        result.setServiceId(serviceId);
+        result.setServiceName(serviceName);
+        result.setStatus(status);
+        result.setMessage(message);
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package com.mock.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LoadTestRequest {
+    private String serviceId;
+    private String model = "closed"; // "closed": workers send back to back, "open": requests arrive at a fixed rate
+    private int concurrency = 16; // Closed: number of workers. Open: max requests in flight
+    private int ratePerSecond; // Open: arrival rate. Closed: optional total pacing, 0 runs flat out
+    private int durationSeconds = 10;
+    private int warmupSeconds; // Requests sent in this window are not recorded
+    private List<LoadTestTarget> targets; // Weighted request mix, GET / when empty
+}
@@ -0,0 +1,14 @@
+package com.mock.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class LoadTestTarget {
+    private String method = "GET";
+    private String path = "/"; // Relative to the service's context path, may include a query string
+    private String body;
+    private Map<String, String> headers;
+    private int weight = 1; // Share of the mix relative to the other targets
+}
@@ -12,5 +12,7 @@ public class SwaggerEndpoint {
     private String operationId;
     private Map<String, Object> requestBodySchema;
     private Map<String, Object> responseSchema;
+    private Integer responseStatus; // status code the response schema belongs to
+    private Object responseExample; // example of the response body, if the spec has one
     private String tag;
 }
@@ -0,0 +1,13 @@
+package com.mock.dto;
+
+import com.mock.model.MockServiceConfig;
+import lombok.Data;
+
+@Data
+public class SwaggerImportResult {
+    private MockServiceConfig service;
+    private int operations; // Rules created
+    private int fromExamples; // Rules whose body came from an example in the spec
+    private long durationMs;
+    private String message; // Why the service could not be started, null otherwise
+}
@@ -0,0 +1,24 @@
+package com.mock.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SwaggerServiceImport {
+    private String swaggerUrl; // Where to read the spec from
+    private String content; // Or the spec itself (JSON or YAML), takes precedence over swaggerUrl
+
+    private String serviceId; // Append the rules to this existing service instead of creating one
+    private String serviceName; // New service only
+    private int port; // New service only
+    private String contextPath; // New service only
+    private String description; // New service only
+    private boolean start; // Start (or keep running) the service once imported
+
+    private String basePath; // Prefixed to every operation path, e.g. the path of the spec's server URL
+    private List<String> operations; // "METHOD /path" entries to import, all operations when empty
+    private String responseMode = "static"; // "static": example or data generated once, "generate": fresh per request
+    private int generateVariants; // Generate mode: pre-generated bodies per rule, 0 = fresh per request
+    private Long seed; // Makes the generated data reproducible
+}
@@ -7,4 +7,15 @@ public class AppSettings {
     private String eurekaUrl = "http://localhost:8761/eureka/";
     private boolean preferIpAddress = true;
     private int heartbeatIntervalSeconds = 30;
+    private String defaultExecutorMode = "platform"; // "platform" or "virtual", used when a service sets none
+    private String serverMode = "isolated"; // "isolated": one Tomcat per service, "shared": one connector per service
+    private int sharedMaxThreads = 200; // Platform thread pool shared by all connectors in shared mode
+    private int forwardMaxConnections = 200; // Pooled upstream connections across all forward targets
+    private int forwardMaxConnectionsPerTarget = 50; // Pooled upstream connections per host:port
+    private String captureDirectory = "captures"; // Record/replay segment files, one folder per service
+    private int captureSegmentMb = 256; // Segment size before rolling over to a new file
+    private int captureMaxBodyBytes = 16 * 1024 * 1024; // Larger responses are relayed but not recorded
+    private int journalCapacity = 1024; // Recent requests kept per service for the request journal
+    private int journalBodyChars = 256; // Request body excerpt kept per journal entry, 0 disables it
+    private double requestLogSampleRate = 0.0; // Fraction of requests logged at INFO, 0 disables request logging
 }
@@ -0,0 +1,22 @@
+package com.mock.model;
+
+import lombok.Data;
+
+/**
+ * Latency distribution for a rule. Overrides {@link MockRule#getDelayMs()} when set.
+ */
+@Data
+public class LatencyProfile {
+    private String type = "fixed"; // fixed, uniform, normal, percentile
+
+    private long fixedMs; // fixed
+
+    private long minMs; // uniform lower bound, lower clamp for the others
+    private long maxMs; // uniform upper bound, upper clamp for the others (0 = none)
+
+    private double meanMs; // normal
+    private double stdDevMs; // normal
+
+    private long p50Ms; // percentile: median
+    private long p99Ms; // percentile: 99th percentile
+}
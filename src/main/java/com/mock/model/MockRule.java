@@ -1,6 +1,7 @@
 package com.mock.model;
 
 import lombok.Data;
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -15,7 +16,26 @@ public class MockRule {
     private Map<String, String> responseHeaders;
 
     private long delayMs; // Simulate latency
+    private LatencyProfile latency; // Optional distribution, takes precedence over delayMs
 
-    private String mode = "mock"; // "mock" or "forward"
-    private String forwardUrl; // Target URL for forwarding
+    private String mode = "mock"; // "mock", "forward", "record" (forward and capture), "replay" (serve captures)
+                                  // "generate" (data generated from responseSchema) or "resource" (stateful CRUD store)
+    private String forwardUrl; // Target URL for forwarding and recording
+    private long connectTimeoutMs = 5000; // Forwarding connect timeout
+    private long readTimeoutMs = 30000; // Forwarding socket read timeout
+
+    private long cacheTtlMs; // Forward mode: cache upstream 2xx responses this long, 0 disables the cache
+    private long cacheMaxBytes = 64 * 1024 * 1024; // Forward mode: LRU byte budget of the cache
+    private List<String> cacheKeyHeaders; // Forward mode: request headers that vary the cached response
+    private long cacheWaitMs = 30000; // Forward mode: how long a miss waits on the same in-flight fetch before going upstream itself
+
+    private Map<String, Object> responseSchema; // Generate mode: JSON schema of the response body
+    private int generateVariants; // Generate mode: serve this many pre-generated bodies round-robin, 0 = fresh per request
+    private Long generateSeed; // Generate mode: makes the generated data reproducible
+
+    private String resourceCollection; // Resource mode: collection name, defaults to the request path up to the id
+    private String resourceIdField = "id"; // Resource mode: field holding the item id
+    private List<String> resourceIndexes; // Resource mode: fields indexed for filtering with query parameters
+    private int resourceMaxItems = 10000; // Resource mode: oldest items are evicted beyond this many per collection
+    private long resourceMaxBytes = 64 * 1024 * 1024; // Resource mode: and beyond this much JSON per collection
 }
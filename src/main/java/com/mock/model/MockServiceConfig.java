@@ -13,5 +13,14 @@ public class MockServiceConfig {
     private String description;
     private boolean running;
 
+    private String executorMode; // "platform" or "virtual"; null falls back to AppSettings
+    // Connector pool settings, null keeps Tomcat's defaults. maxThreads only applies to platform threads
+    private Integer maxThreads;
+    private Integer acceptCount;
+    private Integer maxConnections;
+
+    private long maxBodyBytes = 10 * 1024 * 1024; // Largest request body read into memory
+    private String bodyOverflow = "reject"; // Beyond maxBodyBytes: "reject" (413) or "spill" to a temp file
+
     private List<MockRule> rules = new ArrayList<>();
 }
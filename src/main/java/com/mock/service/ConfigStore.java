@@ -0,0 +1,294 @@
+package com.mock.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.mock.model.MockServiceConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Persists service configs as a snapshot plus an append-only change log.
+ * <p>
+ * Callers only queue the id of the service that changed; a single writer thread serializes the
+ * service's current config, as handed out by the source given to {@link #load}, and appends the
+ * changes in batches with one fsync per batch, so frequent edits never wait on the disk. Reading
+ * the current config at write time means two saves racing for the same id cannot leave the older
+ * state last in the log. Once the log holds {@code compact-after} records the writer folds
+ * everything into a new snapshot and truncates the log. On load, log records newer than the
+ * snapshot are replayed and a torn last record from a crash is cut off.
+ */
+@Slf4j
+@Service
+public class ConfigStore {
+
+    private static final String SNAPSHOT_FILE = "snapshot.json";
+    private static final String LOG_FILE = "changes.log";
+    // Compared by identity, so no service id can stand in for it
+    private static final String CLOSE = new String("close");
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long syncIntervalMs;
+    private final int compactAfter;
+
+    // Ids of services whose config changed; CLOSE stops the writer
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    // Owned by the writer thread after load: latest JSON of every stored service
+    private final Map<String, String> latest = new LinkedHashMap<>();
+    private long sequence;
+    private int logRecords;
+    private FileChannel logChannel;
+    private Thread writer;
+    private Function<String, MockServiceConfig> source;
+
+    public ConfigStore(ObjectMapper objectMapper,
+            @Value("${mock.store.directory:data}") String directory,
+            @Value("${mock.store.sync-interval-ms:20}") long syncIntervalMs,
+            @Value("${mock.store.compact-after:1000}") int compactAfter) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.syncIntervalMs = syncIntervalMs;
+        this.compactAfter = compactAfter;
+    }
+
+    /**
+     * Read the stored configs and start accepting writes. Called once on startup.
+     *
+     * @param source the current config of a service id, or null once it is deleted
+     */
+    public synchronized List<MockServiceConfig> load(Function<String, MockServiceConfig> source)
+            throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("Config store already loaded");
+        }
+        this.source = source;
+        Files.createDirectories(directory);
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            JsonNode root = objectMapper.readTree(snapshot.toFile());
+            sequence = root.path("sequence").asLong();
+            for (JsonNode service : root.path("services")) {
+                latest.put(service.path("id").asText(), service.toString());
+            }
+        }
+        long snapshotSequence = sequence;
+        replayLog(snapshotSequence);
+
+        List<MockServiceConfig> configs = new ArrayList<>(latest.size());
+        for (String json : latest.values()) {
+            configs.add(objectMapper.readValue(json, MockServiceConfig.class));
+        }
+        log.info("Loaded {} services from {} (snapshot at {}, {} log records)", configs.size(), directory,
+                snapshotSequence, logRecords);
+
+        logChannel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        writer = new Thread(this::writeLoop, "config-store");
+        writer.setDaemon(true);
+        writer.start();
+        return configs;
+    }
+
+    public void save(MockServiceConfig config) {
+        queue.add(config.getId());
+    }
+
+    /**
+     * Persist the removal of a service that is no longer handed out by the source
+     */
+    public void delete(String id) {
+        queue.add(id);
+    }
+
+    /**
+     * Flush what is queued and stop the writer
+     */
+    @PreDestroy
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+        }
+        if (thread == null) {
+            return;
+        }
+        queue.add(CLOSE);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replayLog(long snapshotSequence) throws IOException {
+        Path logFile = directory.resolve(LOG_FILE);
+        if (!Files.exists(logFile)) {
+            return;
+        }
+        byte[] content = Files.readAllBytes(logFile);
+        int start = 0;
+        int valid = 0;
+        while (start < content.length) {
+            int end = start;
+            while (end < content.length && content[end] != '\n') {
+                end++;
+            }
+            if (end == content.length) {
+                break; // No newline: the last write was cut short
+            }
+            JsonNode record;
+            try {
+                record = objectMapper.readTree(new String(content, start, end - start, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                break;
+            }
+            long seq = record.path("seq").asLong();
+            // Records at or before the snapshot are left over from a compaction interrupted before truncating
+            if (seq > snapshotSequence) {
+                apply(record.path("id").asText(), record.has("config") ? record.get("config").toString() : null);
+                sequence = seq;
+                logRecords++;
+            }
+            start = end + 1;
+            valid = start;
+        }
+        if (valid < content.length) {
+            log.warn("Discarding {} bytes of incomplete change log at {}", content.length - valid, logFile);
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+    }
+
+    private void writeLoop() {
+        boolean closing = false;
+        while (!closing) {
+            List<String> batch = new ArrayList<>();
+            try {
+                batch.add(queue.take());
+                if (syncIntervalMs > 0) {
+                    // Let more edits pile up so they share one fsync
+                    Thread.sleep(syncIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                closing = true;
+            }
+            queue.drainTo(batch);
+            closing |= batch.removeIf(id -> id == CLOSE);
+
+            try {
+                if (!batch.isEmpty()) {
+                    append(batch);
+                }
+                if (logRecords >= compactAfter) {
+                    compact();
+                }
+            } catch (Exception e) {
+                log.error("Failed to persist {} config changes", batch.size(), e);
+            }
+        }
+        try {
+            logChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close change log", e);
+        }
+    }
+
+    private void append(List<String> batch) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        int records = 0;
+        // An id saved several times in the batch is written once, in its current state
+        Set<String> ids = new LinkedHashSet<>(batch);
+        for (String id : ids) {
+            MockServiceConfig config = source.apply(id);
+            String json = config != null ? objectMapper.writeValueAsString(config) : null;
+            if (Objects.equals(json, latest.get(id))) {
+                continue;
+            }
+            ObjectNode record = objectMapper.createObjectNode();
+            record.put("seq", ++sequence);
+            record.put("id", id);
+            if (json != null) {
+                record.putRawValue("config", new RawValue(json));
+            }
+            lines.append(objectMapper.writeValueAsString(record)).append('\n');
+            apply(id, json);
+            records++;
+        }
+        if (records == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            logChannel.write(buffer);
+        }
+        logChannel.force(false);
+        logRecords += records;
+    }
+
+    private void compact() throws IOException {
+        StringBuilder snapshot = new StringBuilder("{\"sequence\":").append(sequence).append(",\"services\":[");
+        boolean first = true;
+        for (String json : latest.values()) {
+            if (!first) {
+                snapshot.append(',');
+            }
+            snapshot.append(json);
+            first = false;
+        }
+        snapshot.append("]}");
+
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+
+        logChannel.truncate(0);
+        logChannel.force(true);
+        log.info("Compacted {} log records into a snapshot of {} services", logRecords, latest.size());
+        logRecords = 0;
+    }
+
+    private void apply(String id, String json) {
+        if (json != null) {
+            latest.put(id, json);
+        } else {
+            latest.remove(id);
+        }
+    }
+
+}
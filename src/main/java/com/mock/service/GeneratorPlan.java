@@ -0,0 +1,410 @@
+package com.mock.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A JSON schema compiled into an immutable tree of value generators.
+ * <p>
+ * Type, format and field-name heuristics are resolved once in {@link #compile}; generating a
+ * value only walks the tree. Faker-backed values are sampled from {@link ValuePools}. Plans are
+ * thread-safe: unseeded generation draws from the calling thread's {@link ThreadLocalRandom},
+ * seeded generation from its own {@link Random}, so the same seed always gives the same output.
+ * <p>
+ * A plan can either build the value in memory ({@link #generate()}) or write it token by token to
+ * a {@link JsonGenerator} ({@link #write(JsonGenerator)}), which needs constant memory however
+ * large the arrays are.
+ */
+public final class GeneratorPlan {
+
+    // Timestamps of seeded output must not depend on the clock
+    private static final Instant SEEDED_NOW = Instant.parse("2024-01-01T00:00:00Z");
+    // Cap on x-count, minItems and maxItems; specs often use huge maxItems to mean "unbounded"
+    static final int MAX_ARRAY_ITEMS = 100_000;
+
+    private final Node root;
+
+    private GeneratorPlan(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Generate one value
+     */
+    public Object generate() {
+        return root.generate(new Context(ThreadLocalRandom.current(), null));
+    }
+
+    /**
+     * Generate one value, reproducibly for the same seed
+     */
+    public Object generate(long seed) {
+        return root.generate(new Context(new Random(seed), SEEDED_NOW));
+    }
+
+    /**
+     * Stream one value as JSON
+     */
+    public void write(JsonGenerator gen) throws IOException {
+        root.write(new Context(ThreadLocalRandom.current(), null), gen);
+    }
+
+    /**
+     * Stream one value as JSON, reproducibly for the same seed; same output as {@link #generate(long)}
+     */
+    public void write(JsonGenerator gen, long seed) throws IOException {
+        root.write(new Context(new Random(seed), SEEDED_NOW), gen);
+    }
+
+    public static GeneratorPlan compile(Map<String, Object> schema, ValuePools pools) {
+        if (schema == null || schema.isEmpty()) {
+            return new GeneratorPlan(new ObjectNode(new String[] { "message", "data" },
+                    new Node[] { ctx -> "success", ctx -> null }));
+        }
+        String type = (String) schema.get("type");
+        return new GeneratorPlan(new Compiler(pools).compileType(type != null ? type : "object", schema, null));
+    }
+
+    /**
+     * Generates one value. Scalars are written as generated; containers override {@link #write}
+     * to stream their elements.
+     */
+    @FunctionalInterface
+    interface Node {
+        Object generate(Context ctx);
+
+        default void write(Context ctx, JsonGenerator gen) throws IOException {
+            // Only ever a String, Number, Boolean or null, which need no ObjectCodec
+            gen.writeObject(generate(ctx));
+        }
+    }
+
+    /**
+     * State of one generation call
+     */
+    static final class Context {
+        final Random random;
+        private final Instant now;
+        private String timestamp;
+
+        Context(Random random, Instant now) {
+            this.random = random;
+            this.now = now;
+        }
+
+        /**
+         * Same for every field of one generated value
+         */
+        String timestamp() {
+            if (timestamp == null) {
+                timestamp = (now != null ? now : Instant.now()).toString();
+            }
+            return timestamp;
+        }
+
+        String uuid() {
+            // Version 4 layout; cheaper than UUID.randomUUID(), which contends on a shared SecureRandom
+            long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long lsb = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+            return new UUID(msb, lsb).toString();
+        }
+    }
+
+    private static final class Compiler {
+        private final ValuePools pools;
+
+        private Compiler(ValuePools pools) {
+            this.pools = pools;
+        }
+
+        private Node pooled(ValuePools.Kind kind) {
+            String[] pool = pools.pool(kind);
+            return ctx -> pool[ctx.random.nextInt(pool.length)];
+        }
+
+        private Node compileType(String type, Map<String, Object> schema, String fieldName) {
+            switch (type.toLowerCase(Locale.ROOT)) {
+                case "object":
+                    return compileObject(schema);
+                case "array":
+                    return compileArray(schema, fieldName);
+                case "string":
+                    return compileString(schema, fieldName);
+                case "integer":
+                case "number":
+                    return compileNumber(schema, fieldName);
+                case "boolean":
+                    return ctx -> ctx.random.nextBoolean();
+                default:
+                    return ctx -> null;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node compileObject(Map<String, Object> schema) {
+            Map<String, Object> properties = (Map<String, Object>) schema.get("properties");
+            if (properties == null || properties.isEmpty()) {
+                // No properties defined, return a simple object
+                return new ObjectNode(new String[] { "id", "message" },
+                        new Node[] { Context::uuid, ctx -> "success" });
+            }
+
+            String[] names = new String[properties.size()];
+            Node[] values = new Node[properties.size()];
+            int i = 0;
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                Map<String, Object> propSchema = (Map<String, Object>) entry.getValue();
+                names[i] = entry.getKey();
+                values[i] = compileType((String) propSchema.getOrDefault("type", "string"), propSchema, entry.getKey());
+                i++;
+            }
+            return new ObjectNode(names, values);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node compileArray(Map<String, Object> schema, String fieldName) {
+            Map<String, Object> items = (Map<String, Object>) schema.get("items");
+            if (items == null) {
+                // Nothing to generate the elements from: always an empty array
+                return new ArrayNode(ctx -> null, 0, 0);
+            }
+            Node item = compileType((String) items.getOrDefault("type", "object"), items, fieldName);
+
+            // An explicit x-count wins; otherwise minItems/maxItems, defaulting to 2-4 items
+            Object count = schema.get("x-count");
+            Object minItems = schema.get("minItems");
+            Object maxItems = schema.get("maxItems");
+            int min;
+            int max;
+            if (count instanceof Number) {
+                min = max = itemCount((Number) count);
+            } else {
+                max = maxItems instanceof Number ? itemCount((Number) maxItems) : -1;
+                min = minItems instanceof Number ? itemCount((Number) minItems)
+                        : max >= 0 ? Math.min(2, max) : 2;
+                if (max < min) {
+                    max = maxItems instanceof Number ? min : Math.max(min, 4);
+                }
+            }
+            return new ArrayNode(item, min, max);
+        }
+
+        private static int itemCount(Number value) {
+            return (int) Math.max(0, Math.min(value.longValue(), MAX_ARRAY_ITEMS));
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node compileString(Map<String, Object> schema, String fieldName) {
+            // Enum values win over everything else
+            List<String> enumValues = (List<String>) schema.get("enum");
+            if (enumValues != null && !enumValues.isEmpty()) {
+                List<String> values = Collections.unmodifiableList(new ArrayList<>(enumValues));
+                return ctx -> values.get(ctx.random.nextInt(values.size()));
+            }
+
+            String format = (String) schema.get("format");
+            if (format != null) {
+                switch (format.toLowerCase(Locale.ROOT)) {
+                    case "date":
+                    case "date-time":
+                        return Context::timestamp;
+                    case "email":
+                        return pooled(ValuePools.Kind.EMAIL);
+                    case "uri":
+                    case "url":
+                        return pooled(ValuePools.Kind.URL);
+                    case "uuid":
+                        return Context::uuid;
+                    default:
+                        break;
+                }
+            }
+
+            Node byName = fieldName != null ? stringByName(fieldName.toLowerCase(Locale.ROOT)) : null;
+            // Default: random sentence
+            return byName != null ? byName : pooled(ValuePools.Kind.SHORT_SENTENCE);
+        }
+
+        private Node stringByName(String lowerName) {
+            // ID fields
+            if (lowerName.equals("id") || lowerName.endsWith("id")) {
+                return Context::uuid;
+            }
+
+            // Name fields
+            if (lowerName.contains("name")) {
+                if (lowerName.contains("first")) {
+                    return pooled(ValuePools.Kind.FIRST_NAME);
+                } else if (lowerName.contains("last")) {
+                    return pooled(ValuePools.Kind.LAST_NAME);
+                } else if (lowerName.contains("user") || lowerName.contains("account")) {
+                    return pooled(ValuePools.Kind.USERNAME);
+                } else if (lowerName.contains("company")) {
+                    return pooled(ValuePools.Kind.COMPANY);
+                }
+                return pooled(ValuePools.Kind.FULL_NAME);
+            }
+
+            if (lowerName.contains("email") || lowerName.contains("mail")) {
+                return pooled(ValuePools.Kind.EMAIL);
+            }
+            if (lowerName.contains("phone") || lowerName.contains("mobile") || lowerName.contains("tel")) {
+                return pooled(ValuePools.Kind.PHONE);
+            }
+
+            // Address
+            if (lowerName.contains("address")) {
+                return pooled(ValuePools.Kind.ADDRESS);
+            }
+            if (lowerName.contains("city")) {
+                return pooled(ValuePools.Kind.CITY);
+            }
+            if (lowerName.contains("country")) {
+                return pooled(ValuePools.Kind.COUNTRY);
+            }
+            if (lowerName.contains("street")) {
+                return pooled(ValuePools.Kind.STREET);
+            }
+            if (lowerName.contains("zipcode") || lowerName.contains("zip") || lowerName.contains("postal")) {
+                return pooled(ValuePools.Kind.ZIP);
+            }
+
+            if (lowerName.contains("url") || lowerName.contains("link") || lowerName.contains("website")) {
+                return pooled(ValuePools.Kind.URL);
+            }
+            if (lowerName.contains("desc") || lowerName.contains("content") || lowerName.contains("comment")) {
+                return pooled(ValuePools.Kind.SENTENCE);
+            }
+            if (lowerName.contains("title")) {
+                return pooled(ValuePools.Kind.TITLE);
+            }
+            if (lowerName.contains("status")) {
+                return ctx -> ctx.random.nextBoolean() ? "active" : "inactive";
+            }
+            if (lowerName.contains("code")) {
+                return ctx -> zeroPad(ctx.random.nextInt(1000000), 6);
+            }
+            if (lowerName.contains("date") || lowerName.contains("time") || lowerName.contains("at")) {
+                return Context::timestamp;
+            }
+            return null;
+        }
+
+        private Node compileNumber(Map<String, Object> schema, String fieldName) {
+            if (fieldName != null) {
+                String lowerName = fieldName.toLowerCase(Locale.ROOT);
+                if (lowerName.contains("age")) {
+                    return ctx -> ctx.random.nextInt(60) + 18; // 18-77
+                }
+                if (lowerName.contains("price") || lowerName.contains("amount") || lowerName.contains("cost")) {
+                    // 0-10000 with 2 decimals
+                    return ctx -> Math.round(ctx.random.nextDouble() * 10000 * 100.0) / 100.0;
+                }
+                if (lowerName.contains("count") || lowerName.contains("quantity") || lowerName.contains("total")) {
+                    return ctx -> ctx.random.nextInt(100) + 1;
+                }
+                if (lowerName.contains("percent") || lowerName.contains("rate")) {
+                    return ctx -> ctx.random.nextInt(100);
+                }
+            }
+
+            Object minimum = schema.get("minimum");
+            Object maximum = schema.get("maximum");
+            int min = minimum != null ? ((Number) minimum).intValue() : 0;
+            int max = maximum != null ? ((Number) maximum).intValue() : 1000;
+            if (max > min) {
+                int span = max - min;
+                return ctx -> ctx.random.nextInt(span) + min;
+            }
+            return ctx -> ctx.random.nextInt(1000);
+        }
+    }
+
+    private static String zeroPad(int value, int width) {
+        String digits = Integer.toString(value);
+        if (digits.length() >= width) {
+            return digits;
+        }
+        StringBuilder sb = new StringBuilder(width);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    private static final class ArrayNode implements Node {
+        private final Node item;
+        private final int minItems;
+        private final int maxItems;
+
+        private ArrayNode(Node item, int minItems, int maxItems) {
+            this.item = item;
+            this.minItems = minItems;
+            this.maxItems = maxItems;
+        }
+
+        private int count(Context ctx) {
+            return maxItems > minItems ? minItems + ctx.random.nextInt(maxItems - minItems + 1) : minItems;
+        }
+
+        @Override
+        public Object generate(Context ctx) {
+            int count = count(ctx);
+            List<Object> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(item.generate(ctx));
+            }
+            return result;
+        }
+
+        @Override
+        public void write(Context ctx, JsonGenerator gen) throws IOException {
+            int count = count(ctx);
+            gen.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                item.write(ctx, gen);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static final class ObjectNode implements Node {
+        private final String[] names;
+        private final Node[] values;
+
+        private ObjectNode(String[] names, Node[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        @Override
+        public Object generate(Context ctx) {
+            Map<String, Object> result = new LinkedHashMap<>((int) (names.length / 0.75f) + 1);
+            for (int i = 0; i < names.length; i++) {
+                result.put(names[i], values[i].generate(ctx));
+            }
+            return result;
+        }
+
+        @Override
+        public void write(Context ctx, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                gen.writeFieldName(names[i]);
+                values[i].write(ctx, gen);
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.mock.service;
+
+import com.mock.core.DynamicServerManager;
+import com.mock.dto.LoadTestRequest;
+import com.mock.model.MockServiceConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs load tests against mock services of this platform and keeps the most recent results
+ */
+@Slf4j
+@Service
+public class LoadGenerator {
+
+    private static final int MAX_KEPT_RUNS = 20;
+
+    // Insertion-ordered so the oldest finished runs are dropped first; guarded by this
+    private final Map<String, LoadTestRun> runs = new LinkedHashMap<>();
+    private final MockConfigService configService;
+    private final DynamicServerManager serverManager;
+
+    public LoadGenerator(MockConfigService configService, DynamicServerManager serverManager) {
+        this.configService = configService;
+        this.serverManager = serverManager;
+    }
+
+    public LoadTestRun start(LoadTestRequest request) {
+        MockServiceConfig config = configService.getService(request.getServiceId());
+        if (config == null) {
+            throw new IllegalArgumentException("Unknown service " + request.getServiceId());
+        }
+        if (!serverManager.isRunning(config.getId())) {
+            throw new IllegalStateException("Service " + config.getServiceName() + " is not running");
+        }
+        validate(request);
+
+        String contextPath = config.getContextPath() == null || "/".equals(config.getContextPath()) ? ""
+                : config.getContextPath();
+        LoadTestRun run = new LoadTestRun(UUID.randomUUID().toString(), request,
+                "http://localhost:" + config.getPort() + contextPath);
+        synchronized (this) {
+            trim();
+            runs.put(run.getId(), run);
+        }
+
+        log.info("Starting {} load test {} against {} for {}s", request.getModel(), run.getId(),
+                config.getServiceName(), request.getDurationSeconds());
+        Thread.ofVirtual().name("load-test-" + run.getId()).start(run::execute);
+        return run;
+    }
+
+    public synchronized LoadTestRun get(String id) {
+        return runs.get(id);
+    }
+
+    public synchronized List<LoadTestRun> list() {
+        return new ArrayList<>(runs.values());
+    }
+
+    public void stop(String id) {
+        LoadTestRun run = get(id);
+        if (run != null) {
+            run.stop();
+        }
+    }
+
+    private static void validate(LoadTestRequest request) {
+        if (request.getConcurrency() < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        if (request.getDurationSeconds() < 1 || request.getWarmupSeconds() < 0) {
+            throw new IllegalArgumentException("durationSeconds must be at least 1 and warmupSeconds not negative");
+        }
+        if ("open".equalsIgnoreCase(request.getModel()) && request.getRatePerSecond() < 1) {
+            throw new IllegalArgumentException("The open model needs ratePerSecond");
+        }
+    }
+
+    private void trim() {
+        Iterator<LoadTestRun> oldest = runs.values().iterator();
+        while (runs.size() >= MAX_KEPT_RUNS && oldest.hasNext()) {
+            LoadTestRun run = oldest.next();
+            if (!"running".equals(run.getState()) && !"pending".equals(run.getState())) {
+                oldest.remove();
+            }
+        }
+    }
+}
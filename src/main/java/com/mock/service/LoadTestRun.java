@@ -0,0 +1,282 @@
+package com.mock.service;
+
+import com.mock.core.LatencyHistogram;
+import com.mock.dto.LoadTestRequest;
+import com.mock.dto.LoadTestTarget;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One load test against a running mock service.
+ * <p>
+ * Every request has an intended start time. In the open model it comes from the arrival schedule;
+ * paced closed-model workers get one per slot. Latency is recorded twice: from the actual send
+ * ("latency") and from the intended start ("corrected"). The corrected numbers include the time a
+ * request spent waiting because the target fell behind, i.e. they are free of coordinated
+ * omission. Unpaced closed-model workers have no schedule, so both are the same there.
+ */
+@Slf4j
+public class LoadTestRun {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String id;
+    private final LoadTestRequest request;
+    private final String baseUrl;
+    private final List<LoadTestTarget> targets;
+    private final List<HttpRequest> prepared = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram corrected = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder[] targetCounts;
+
+    private volatile String state = "pending";
+    private volatile String failure;
+    private volatile boolean stopRequested;
+    private volatile long startedAt;
+    private volatile long measureStartNanos;
+    private volatile long measureEndNanos;
+
+    LoadTestRun(String id, LoadTestRequest request, String baseUrl) {
+        this.id = id;
+        this.request = request;
+        this.baseUrl = baseUrl;
+        this.targets = request.getTargets() != null && !request.getTargets().isEmpty()
+                ? request.getTargets()
+                : List.of(new LoadTestTarget());
+
+        cumulativeWeights = new int[targets.size()];
+        targetCounts = new LongAdder[targets.size()];
+        int sum = 0;
+        for (int i = 0; i < targets.size(); i++) {
+            LoadTestTarget target = targets.get(i);
+            sum += Math.max(0, target.getWeight());
+            cumulativeWeights[i] = sum;
+            targetCounts[i] = new LongAdder();
+            prepared.add(prepare(target));
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("At least one target needs a positive weight");
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    void execute() {
+        state = "running";
+        startedAt = System.currentTimeMillis();
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .executor(clientExecutor)
+                        .build();
+                ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            measureStartNanos = start + TimeUnit.SECONDS.toNanos(request.getWarmupSeconds());
+            long end = measureStartNanos + TimeUnit.SECONDS.toNanos(request.getDurationSeconds());
+
+            if ("open".equalsIgnoreCase(request.getModel())) {
+                runOpen(client, workers, start, end);
+            } else {
+                runClosed(client, workers, start, end);
+            }
+            workers.shutdown();
+            workers.awaitTermination(REQUEST_TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS);
+            measureEndNanos = Math.min(System.nanoTime(), end);
+            state = stopRequested ? "stopped" : "completed";
+        } catch (Exception e) {
+            log.warn("Load test {} failed", id, e);
+            measureEndNanos = System.nanoTime();
+            failure = e.getMessage();
+            state = "failed";
+        }
+    }
+
+    private void runOpen(HttpClient client, ExecutorService workers, long start, long end)
+            throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / request.getRatePerSecond();
+        // Caps requests in flight; waiting for a permit still counts against the intended start
+        Semaphore inFlight = new Semaphore(request.getConcurrency());
+        for (long i = 0; !stopRequested; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            parkUntil(intended);
+            inFlight.acquire();
+            workers.execute(() -> {
+                try {
+                    send(client, intended);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void runClosed(HttpClient client, ExecutorService workers, long start, long end) {
+        int concurrency = request.getConcurrency();
+        long interval = request.getRatePerSecond() > 0
+                ? TimeUnit.SECONDS.toNanos(1) * concurrency / request.getRatePerSecond()
+                : 0;
+        for (int w = 0; w < concurrency; w++) {
+            // Stagger paced workers so their slots do not all line up
+            long offset = interval * w / concurrency;
+            workers.execute(() -> {
+                for (long k = 0; !stopRequested; k++) {
+                    long intended = interval > 0 ? start + offset + k * interval : System.nanoTime();
+                    if (intended >= end) {
+                        return;
+                    }
+                    parkUntil(intended);
+                    send(client, intended);
+                }
+            });
+        }
+    }
+
+    private void send(HttpClient client, long intended) {
+        int target = pickTarget();
+        long sent = System.nanoTime();
+        int status = -1;
+        try {
+            HttpResponse<Void> response = client.send(prepared.get(target), HttpResponse.BodyHandlers.discarding());
+            status = response.statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            // Connection refused, reset or timed out
+        }
+
+        long done = System.nanoTime();
+        if (intended < measureStartNanos) {
+            return;
+        }
+        requests.increment();
+        targetCounts[target].increment();
+        if (status < 0) {
+            errors.increment();
+        } else {
+            LongAdder counter = statuses.get(status);
+            if (counter == null) {
+                counter = statuses.computeIfAbsent(status, s -> new LongAdder());
+            }
+            counter.increment();
+        }
+        latency.recordNanos(done - sent);
+        corrected.recordNanos(done - intended);
+    }
+
+    private int pickTarget() {
+        if (cumulativeWeights.length == 1) {
+            return 0;
+        }
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private HttpRequest prepare(LoadTestTarget target) {
+        String path = target.getPath() != null ? target.getPath() : "/";
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + (path.startsWith("/") ? path
+                : "/" + path)))
+                .timeout(REQUEST_TIMEOUT)
+                .method(target.getMethod() != null ? target.getMethod().toUpperCase() : "GET",
+                        target.getBody() != null ? HttpRequest.BodyPublishers.ofString(target.getBody())
+                                : HttpRequest.BodyPublishers.noBody());
+        if (target.getHeaders() != null) {
+            target.getHeaders().forEach(builder::header);
+        }
+        return builder.build();
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Progress while running, final numbers afterwards
+     */
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("id", id);
+        report.put("serviceId", request.getServiceId());
+        report.put("model", request.getModel());
+        report.put("concurrency", request.getConcurrency());
+        report.put("ratePerSecond", request.getRatePerSecond());
+        report.put("durationSeconds", request.getDurationSeconds());
+        report.put("state", state);
+        if (failure != null) {
+            report.put("failure", failure);
+        }
+        report.put("startedAt", startedAt);
+
+        long now = System.nanoTime();
+        long measureEnd = measureEndNanos != 0 ? measureEndNanos : now;
+        double measuredSeconds = measureStartNanos != 0 && measureEnd > measureStartNanos
+                ? (measureEnd - measureStartNanos) / 1e9
+                : 0;
+        long total = requests.sum();
+        report.put("requests", total);
+        report.put("errors", errors.sum());
+        report.put("throughput", measuredSeconds > 0 ? total / measuredSeconds : 0.0);
+
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, counter) -> statusCounts.put(status, counter.sum()));
+        report.put("statuses", statusCounts);
+        report.put("latency", latency.summary());
+        report.put("corrected", corrected.summary());
+
+        List<Map<String, Object>> mix = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("method", targets.get(i).getMethod());
+            entry.put("path", targets.get(i).getPath());
+            entry.put("requests", targetCounts[i].sum());
+            mix.add(entry);
+        }
+        report.put("targets", mix);
+        return report;
+    }
+}
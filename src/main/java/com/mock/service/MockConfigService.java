@@ -1,23 +1,106 @@
 package com.mock.service;
 
 import com.mock.core.DynamicServerManager;
+import com.mock.core.MetricsRegistry;
+import com.mock.core.RequestJournals;
+import com.mock.core.ResourceStores;
+import com.mock.core.RuleCompiler;
+import com.mock.core.RuleSnapshot;
+import com.mock.dto.BatchResult;
 import com.mock.model.MockServiceConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 @Service
 public class MockConfigService {
 
     private final Map<String, MockServiceConfig> configs = new ConcurrentHashMap<>();
+    // Rules compiled when a stopped service was saved, handed to the server when it starts
+    private final Map<String, RuleSnapshot> compiledRules = new ConcurrentHashMap<>();
     private final DynamicServerManager serverManager;
+    private final RuleCompiler ruleCompiler;
+    private final MetricsRegistry metricsRegistry;
+    private final RequestJournals journals;
+    private final ResourceStores resourceStores;
+    private final ConfigStore configStore;
+    // Bounded so a large batch does not bind every port and spawn every server at once
+    private final ExecutorService batchPool;
 
-    public MockConfigService(DynamicServerManager serverManager) {
+    public MockConfigService(DynamicServerManager serverManager, RuleCompiler ruleCompiler,
+            MetricsRegistry metricsRegistry, RequestJournals journals, ResourceStores resourceStores,
+            ConfigStore configStore) {
         this.serverManager = serverManager;
+        this.ruleCompiler = ruleCompiler;
+        this.metricsRegistry = metricsRegistry;
+        this.journals = journals;
+        this.resourceStores = resourceStores;
+        this.configStore = configStore;
+
+        AtomicInteger counter = new AtomicInteger();
+        int workers = Math.min(16, Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        this.batchPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "service-batch-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdownNow();
+    }
+
+    /**
+     * Load the stored configs; they were validated when saved, so they are not compiled again here
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        for (MockServiceConfig config : configStore.load(configs::get)) {
+            configs.put(config.getId(), config);
+        }
+    }
+
+    /**
+     * Bring back the services that were running when the platform stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreRunningServices() {
+        List<String> ids = new ArrayList<>();
+        for (MockServiceConfig config : configs.values()) {
+            if (config.isRunning()) {
+                config.setRunning(false);
+                ids.add(config.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (BatchResult result : startServices(ids)) {
+            if (!"ok".equals(result.getStatus())) {
+                log.warn("Could not restart service {}: {}", result.getServiceName(), result.getMessage());
+                configStore.save(configs.get(result.getServiceId()));
+            }
+        }
     }
 
     public List<MockServiceConfig> getAllServices() {
@@ -32,31 +115,48 @@ public class MockConfigService {
         if (config.getId() == null) {
             config.setId(UUID.randomUUID().toString());
         }
+        // Reject bad regexes/templates up front instead of failing on every request
+        RuleSnapshot rules = ruleCompiler.compile(config);
         configs.put(config.getId(), config);
+        compiledRules.put(config.getId(), rules);
+        configStore.save(config);
         return config;
     }
 
     public MockServiceConfig updateService(MockServiceConfig config) {
+        // Rules that keep their upstream keep their cached responses
+        RuleSnapshot rules = ruleCompiler.compile(config, serverManager.currentSnapshot(config.getId()));
         configs.put(config.getId(), config);
-        // If running, restart to apply changes (simplified)
-        if (serverManager.isRunning(config.getId())) {
-            serverManager.stopService(config);
-            serverManager.startService(config);
+        // If running, swap the rules in place (restarts only when port/context path change)
+        if (serverManager.applyConfig(config, rules)) {
+            compiledRules.remove(config.getId());
+        } else {
+            config.setRunning(false);
+            compiledRules.put(config.getId(), rules);
         }
+        configStore.save(config);
         return config;
     }
 
     public void deleteService(String id) {
         MockServiceConfig config = configs.remove(id);
+        compiledRules.remove(id);
         if (config != null && serverManager.isRunning(id)) {
             serverManager.stopService(config);
         }
+        metricsRegistry.remove(id);
+        journals.remove(id);
+        resourceStores.remove(id);
+        if (config != null) {
+            configStore.delete(id);
+        }
     }
 
     public void startService(String id) {
         MockServiceConfig config = configs.get(id);
         if (config != null) {
-            serverManager.startService(config);
+            serverManager.startService(config, rulesOf(config));
+            configStore.save(config);
         }
     }
 
@@ -64,6 +164,235 @@ public class MockConfigService {
         MockServiceConfig config = configs.get(id);
         if (config != null) {
             serverManager.stopService(config);
+            configStore.save(config);
+        }
+    }
+
+    /**
+     * Create or update many services at once. The whole batch is validated first (rules, and for
+     * services that will run: duplicate ports, ports held by other running services); if anything
+     * is invalid nothing is applied. Otherwise running services that move to another port are
+     * stopped first, then services are applied in parallel and those meant to run are (re)started.
+     */
+    public List<BatchResult> importServices(List<MockServiceConfig> batch) {
+        for (MockServiceConfig config : batch) {
+            if (config.getId() == null) {
+                config.setId(UUID.randomUUID().toString());
+            }
+        }
+
+        Map<String, RuleSnapshot> rules = new HashMap<>();
+        Map<String, String> errors = validateBatch(batch, rules);
+        if (!errors.isEmpty()) {
+            List<BatchResult> results = new ArrayList<>(batch.size());
+            for (MockServiceConfig config : batch) {
+                String error = errors.get(config.getId());
+                results.add(BatchResult.of(config.getId(), config.getServiceName(), error != null ? "invalid" : "skipped",
+                        error != null ? error : "Not applied: " + errors.size() + " invalid service(s) in the batch"));
+            }
+            return results;
+        }
+
+        // Release the old ports before anything starts, so a service taking over a port another one
+        // in the batch is leaving cannot race the move
+        List<MockServiceConfig> moving = new ArrayList<>();
+        for (MockServiceConfig config : batch) {
+            MockServiceConfig existing = configs.get(config.getId());
+            if (existing != null && serverManager.isRunning(config.getId()) && existing.getPort() != config.getPort()) {
+                moving.add(config);
+            }
+        }
+        Map<String, BatchResult> results = new HashMap<>();
+        for (BatchResult result : runBatch(moving, config -> serverManager.stopService(configs.get(config.getId())))) {
+            results.put(result.getServiceId(), result);
+        }
+
+        List<MockServiceConfig> remaining = new ArrayList<>(batch.size());
+        for (MockServiceConfig config : batch) {
+            BatchResult stopped = results.get(config.getId());
+            if (stopped == null || "ok".equals(stopped.getStatus())) {
+                remaining.add(config);
+            }
+        }
+        for (BatchResult result : runBatch(remaining, config -> {
+            MockServiceConfig existing = configs.put(config.getId(), config);
+            // Services that were running keep running, whatever the imported flag says
+            boolean wanted = config.isRunning() || results.containsKey(config.getId());
+            RuleSnapshot compiled = rules.get(config.getId());
+            boolean applied = existing != null && serverManager.applyConfig(config, compiled);
+            if (!applied) {
+                config.setRunning(false);
+                if (wanted) {
+                    serverManager.startService(config, compiled);
+                }
+            }
+            if (serverManager.isRunning(config.getId())) {
+                compiledRules.remove(config.getId());
+            } else {
+                compiledRules.put(config.getId(), compiled);
+            }
+            configStore.save(config);
+        })) {
+            results.put(result.getServiceId(), result);
+        }
+
+        List<BatchResult> ordered = new ArrayList<>(batch.size());
+        for (MockServiceConfig config : batch) {
+            ordered.add(results.get(config.getId()));
+        }
+        return ordered;
+    }
+
+    /**
+     * Start the given services (all when empty) in parallel
+     */
+    public List<BatchResult> startServices(List<String> ids) {
+        List<MockServiceConfig> batch = resolve(ids);
+        // The same port twice in one batch: neither can be expected to win, so both fail up front
+        Map<Integer, Integer> portCounts = new HashMap<>();
+        for (MockServiceConfig config : batch) {
+            if (!serverManager.isRunning(config.getId())) {
+                portCounts.merge(config.getPort(), 1, Integer::sum);
+            }
+        }
+        return runBatch(batch, config -> {
+            requireKnown(config);
+            if (serverManager.isRunning(config.getId())) {
+                return;
+            }
+            if (portCounts.getOrDefault(config.getPort(), 0) > 1) {
+                throw new IllegalStateException("Port " + config.getPort() + " is used by several services in the batch");
+            }
+            serverManager.startService(config, rulesOf(config));
+            configStore.save(config);
+        });
+    }
+
+    /**
+     * Stop the given services (all when empty) in parallel
+     */
+    public List<BatchResult> stopServices(List<String> ids) {
+        return runBatch(resolve(ids), config -> {
+            requireKnown(config);
+            serverManager.stopService(config);
+            configStore.save(config);
+        });
+    }
+
+    /**
+     * Errors by service id; the compiled rules of valid configs go into {@code rules}
+     */
+    private Map<String, String> validateBatch(List<MockServiceConfig> batch, Map<String, RuleSnapshot> rules) {
+        Map<String, String> errors = new HashMap<>();
+        Set<String> batchIds = new HashSet<>();
+        Map<Integer, String> ports = new HashMap<>();
+        for (MockServiceConfig config : batch) {
+            batchIds.add(config.getId());
+        }
+        for (MockServiceConfig config : batch) {
+            try {
+                rules.put(config.getId(), ruleCompiler.compile(config, serverManager.currentSnapshot(config.getId())));
+            } catch (RuntimeException e) {
+                errors.put(config.getId(), e.getMessage());
+                continue;
+            }
+            if (config.getPort() <= 0 || config.getPort() > 65535) {
+                errors.put(config.getId(), "Invalid port " + config.getPort());
+                continue;
+            }
+            // Stopped services may share a port; only the ones that will run need it to themselves
+            if (!config.isRunning() && !serverManager.isRunning(config.getId())) {
+                continue;
+            }
+            String duplicate = ports.putIfAbsent(config.getPort(), config.getServiceName());
+            if (duplicate != null) {
+                errors.put(config.getId(), "Port " + config.getPort() + " is also used by " + duplicate);
+                continue;
+            }
+            String owner = serverManager.portOwner(config.getPort());
+            if (owner != null && !batchIds.contains(owner)) {
+                MockServiceConfig running = configs.get(owner);
+                errors.put(config.getId(), "Port " + config.getPort() + " is held by running service "
+                        + (running != null ? running.getServiceName() : owner));
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * The rules compiled when the config was saved, or freshly compiled ones (e.g. for stored configs)
+     */
+    private RuleSnapshot rulesOf(MockServiceConfig config) {
+        RuleSnapshot rules = compiledRules.remove(config.getId());
+        return rules != null && rules.getConfig() == config ? rules : ruleCompiler.compile(config);
+    }
+
+    private List<MockServiceConfig> resolve(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>(configs.values());
         }
+        List<MockServiceConfig> batch = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            MockServiceConfig config = configs.get(id);
+            if (config == null) {
+                // Placeholder so the unknown id still gets a result
+                config = new MockServiceConfig();
+                config.setId(id);
+            }
+            batch.add(config);
+        }
+        return batch;
+    }
+
+    private void requireKnown(MockServiceConfig config) {
+        if (configs.get(config.getId()) != config) {
+            throw new IllegalArgumentException("Unknown service " + config.getId());
+        }
+    }
+
+    private List<BatchResult> runBatch(List<MockServiceConfig> batch, BatchAction action) {
+        List<Future<BatchResult>> futures = new ArrayList<>(batch.size());
+        for (MockServiceConfig config : batch) {
+            futures.add(batchPool.submit(() -> {
+                long start = System.currentTimeMillis();
+                BatchResult result;
+                try {
+                    action.apply(config);
+                    result = BatchResult.of(config.getId(), config.getServiceName(), "ok", null);
+                } catch (Exception e) {
+                    result = BatchResult.of(config.getId(), config.getServiceName(), "failed", rootMessage(e));
+                }
+                result.setRunning(serverManager.isRunning(config.getId()));
+                result.setDurationMs(System.currentTimeMillis() - start);
+                return result;
+            }));
+        }
+
+        List<BatchResult> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            MockServiceConfig config = batch.get(i);
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(BatchResult.of(config.getId(), config.getServiceName(), "failed", "Interrupted"));
+            } catch (ExecutionException e) {
+                results.add(BatchResult.of(config.getId(), config.getServiceName(), "failed", rootMessage(e)));
+            }
+        }
+        return results;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    @FunctionalInterface
+    private interface BatchAction {
+        void apply(MockServiceConfig config) throws Exception;
     }
 }
@@ -1,6 +1,7 @@
 package com.mock.service;
 
 import com.mock.dto.SwaggerEndpoint;
+import io.swagger.parser.OpenAPIParser;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.Operation;
 import io.swagger.v3.oas.models.PathItem;
@@ -10,30 +11,81 @@ import io.swagger.v3.oas.models.media.Schema;
 import io.swagger.v3.oas.models.parameters.RequestBody;
 import io.swagger.v3.oas.models.responses.ApiResponse;
 import io.swagger.v3.parser.OpenAPIV3Parser;
+import io.swagger.v3.parser.core.models.ParseOptions;
+import io.swagger.v3.parser.core.models.SwaggerParseResult;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
 
+/**
+ * Turns Swagger 2.0 / OpenAPI 3 documents into {@link SwaggerEndpoint}s.
+ * <p>
+ * Component schemas are converted once per document and shared by every endpoint that references
+ * them; a component nested in itself more than {@code mock.swagger.max-ref-depth} times is cut off,
+ * so self-referencing models stay finite, and every request or response schema is cut off once it
+ * expands to {@code mock.swagger.max-schema-nodes} schemas, so mutually referencing models do too. Parsed documents are cached: URLs are revalidated with
+ * ETag/Last-Modified, files by modification time and size, and raw documents by content hash.
+ * The returned endpoints are shared with the cache and must not be modified.
+ */
 @Slf4j
 @Service
 public class SwaggerParser {
 
+    private static final String COMPONENT_PREFIX = "#/components/schemas/";
+    // Marks where a recursive component was cut off
+    private static final String CYCLE_MARKER = "x-cycle";
+    private static final int MAX_CACHED_SPECS = 32;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(60);
+
+    private final int maxRefDepth;
+    private final int maxSchemaNodes;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    // Access-ordered, guarded by itself
+    private final Map<String, CachedSpec> specs = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SwaggerParser(@Value("${mock.swagger.max-ref-depth:2}") int maxRefDepth,
+            @Value("${mock.swagger.max-schema-nodes:5000}") int maxSchemaNodes) {
+        this.maxRefDepth = Math.max(1, maxRefDepth);
+        this.maxSchemaNodes = Math.max(1, maxSchemaNodes);
+    }
+
     /**
-     * Parse Swagger/OpenAPI document from URL
+     * Parse Swagger/OpenAPI document from URL or file path
      */
     public List<SwaggerEndpoint> parseSwaggerUrl(String swaggerUrl) {
         try {
             log.info("Parsing Swagger from URL: {}", swaggerUrl);
+            if (swaggerUrl.startsWith("http://") || swaggerUrl.startsWith("https://")) {
+                return fetch(swaggerUrl);
+            }
+            Path file = localFile(swaggerUrl);
+            if (file != null) {
+                return readFile(swaggerUrl, file);
+            }
 
-            // Parse using OpenAPI parser (supports both Swagger 2.0 and OpenAPI 3.0)
+            // Anything else (e.g. a classpath resource) is left to the parser and not cached
             OpenAPI openAPI = new OpenAPIV3Parser().read(swaggerUrl);
-
             if (openAPI == null) {
                 log.error("Failed to parse Swagger document from: {}", swaggerUrl);
                 throw new RuntimeException("Failed to parse Swagger document");
             }
-
             return extractEndpoints(openAPI);
         } catch (Exception e) {
             log.error("Error parsing Swagger document", e);
@@ -41,6 +93,109 @@ public class SwaggerParser {
         }
     }
 
+    /**
+     * Parse an uploaded or pasted Swagger/OpenAPI document (JSON or YAML)
+     */
+    public List<SwaggerEndpoint> parseSwaggerContent(String content) {
+        try {
+            String key = "content:" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+            CachedSpec cached = cached(key);
+            if (cached != null) {
+                return cached.endpoints;
+            }
+            log.info("Parsing Swagger document of {} characters", content.length());
+            List<SwaggerEndpoint> endpoints = parseContents(content);
+            store(key, new CachedSpec(null, null, null, endpoints));
+            return endpoints;
+        } catch (Exception e) {
+            log.error("Error parsing Swagger document", e);
+            throw new RuntimeException("Error parsing Swagger document: " + e.getMessage(), e);
+        }
+    }
+
+    private List<SwaggerEndpoint> fetch(String url) throws IOException, InterruptedException {
+        CachedSpec cached = cached(url);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).timeout(READ_TIMEOUT).GET();
+        if (cached != null) {
+            if (cached.etag != null) {
+                request.header("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                request.header("If-Modified-Since", cached.lastModified);
+            }
+        }
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 304 && cached != null) {
+            log.info("Swagger document at {} not modified, using cached endpoints", url);
+            return cached.endpoints;
+        }
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " fetching " + url);
+        }
+
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        // Servers without validators send the whole document each time; skip re-parsing if it is unchanged
+        String digest = DigestUtils.md5DigestAsHex(response.body().getBytes(StandardCharsets.UTF_8));
+        List<SwaggerEndpoint> endpoints = cached != null && digest.equals(cached.digest)
+                ? cached.endpoints
+                : parseContents(response.body());
+        store(url, new CachedSpec(etag, lastModified, digest, endpoints));
+        return endpoints;
+    }
+
+    private List<SwaggerEndpoint> readFile(String key, Path file) throws IOException {
+        String version = Files.getLastModifiedTime(file).toMillis() + ":" + Files.size(file);
+        CachedSpec cached = cached(key);
+        if (cached != null && version.equals(cached.lastModified)) {
+            return cached.endpoints;
+        }
+        List<SwaggerEndpoint> endpoints = parseContents(Files.readString(file));
+        store(key, new CachedSpec(null, version, null, endpoints));
+        return endpoints;
+    }
+
+    private static Path localFile(String location) {
+        try {
+            Path path = location.startsWith("file:") ? Paths.get(URI.create(location)) : Paths.get(location);
+            return Files.isRegularFile(path) ? path : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private List<SwaggerEndpoint> parseContents(String content) {
+        ParseOptions options = new ParseOptions();
+        options.setResolve(true);
+        // Internal $refs are resolved by the converter, which shares components and cuts cycles
+        options.setResolveFully(false);
+        // OpenAPIParser also accepts Swagger 2.0 and converts it to OpenAPI 3
+        SwaggerParseResult result = new OpenAPIParser().readContents(content, null, options);
+        if (result == null || result.getOpenAPI() == null) {
+            List<String> messages = result != null ? result.getMessages() : null;
+            throw new IllegalArgumentException("Failed to parse Swagger document"
+                    + (messages != null && !messages.isEmpty() ? ": " + messages : ""));
+        }
+        return extractEndpoints(result.getOpenAPI());
+    }
+
+    private CachedSpec cached(String key) {
+        synchronized (specs) {
+            return specs.get(key);
+        }
+    }
+
+    private void store(String key, CachedSpec spec) {
+        synchronized (specs) {
+            specs.put(key, spec);
+            if (specs.size() > MAX_CACHED_SPECS) {
+                Iterator<String> eldest = specs.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
     /**
      * Extract endpoints from OpenAPI object
      */
@@ -51,28 +206,31 @@ public class SwaggerParser {
             return endpoints;
         }
 
+        SchemaConverter converter = new SchemaConverter(openAPI.getComponents() != null
+                ? openAPI.getComponents().getSchemas() : null);
         openAPI.getPaths().forEach((path, pathItem) -> {
-            endpoints.addAll(extractOperations(path, pathItem));
+            endpoints.addAll(extractOperations(path, pathItem, converter));
         });
 
-        log.info("Extracted {} endpoints from Swagger document", endpoints.size());
-        return endpoints;
+        log.info("Extracted {} endpoints from Swagger document ({} shared component schemas)", endpoints.size(),
+                converter.converted.size());
+        return Collections.unmodifiableList(endpoints);
     }
 
     /**
      * Extract operations from a path item
      */
-    private List<SwaggerEndpoint> extractOperations(String path, PathItem pathItem) {
+    private List<SwaggerEndpoint> extractOperations(String path, PathItem pathItem, SchemaConverter converter) {
         List<SwaggerEndpoint> endpoints = new ArrayList<>();
 
         // Process each HTTP method
-        processOperation(path, "GET", pathItem.getGet(), endpoints);
-        processOperation(path, "POST", pathItem.getPost(), endpoints);
-        processOperation(path, "PUT", pathItem.getPut(), endpoints);
-        processOperation(path, "DELETE", pathItem.getDelete(), endpoints);
-        processOperation(path, "PATCH", pathItem.getPatch(), endpoints);
-        processOperation(path, "HEAD", pathItem.getHead(), endpoints);
-        processOperation(path, "OPTIONS", pathItem.getOptions(), endpoints);
+        processOperation(path, "GET", pathItem.getGet(), endpoints, converter);
+        processOperation(path, "POST", pathItem.getPost(), endpoints, converter);
+        processOperation(path, "PUT", pathItem.getPut(), endpoints, converter);
+        processOperation(path, "DELETE", pathItem.getDelete(), endpoints, converter);
+        processOperation(path, "PATCH", pathItem.getPatch(), endpoints, converter);
+        processOperation(path, "HEAD", pathItem.getHead(), endpoints, converter);
+        processOperation(path, "OPTIONS", pathItem.getOptions(), endpoints, converter);
 
         return endpoints;
     }
@@ -80,7 +238,8 @@ public class SwaggerParser {
     /**
      * Process a single operation
      */
-    private void processOperation(String path, String method, Operation operation, List<SwaggerEndpoint> endpoints) {
+    private void processOperation(String path, String method, Operation operation, List<SwaggerEndpoint> endpoints,
+            SchemaConverter converter) {
         if (operation == null) {
             return;
         }
@@ -98,10 +257,10 @@ public class SwaggerParser {
         }
 
         // Extract request body schema
-        endpoint.setRequestBodySchema(extractRequestBodySchema(operation.getRequestBody()));
+        endpoint.setRequestBodySchema(extractRequestBodySchema(operation.getRequestBody(), converter));
 
-        // Extract response schema (use 200 response)
-        endpoint.setResponseSchema(extractResponseSchema(operation.getResponses()));
+        // Extract response status, schema and example (use 200 response)
+        extractResponse(operation.getResponses(), endpoint, converter);
 
         endpoints.add(endpoint);
     }
@@ -109,7 +268,7 @@ public class SwaggerParser {
     /**
      * Extract request body schema
      */
-    private Map<String, Object> extractRequestBodySchema(RequestBody requestBody) {
+    private Map<String, Object> extractRequestBodySchema(RequestBody requestBody, SchemaConverter converter) {
         if (requestBody == null || requestBody.getContent() == null) {
             return null;
         }
@@ -126,30 +285,39 @@ public class SwaggerParser {
         }
 
         if (mediaType != null && mediaType.getSchema() != null) {
-            return schemaToMap(mediaType.getSchema());
+            return converter.convertRoot(mediaType.getSchema());
         }
 
         return null;
     }
 
     /**
-     * Extract response schema
+     * Extract response status, schema and example (use 200 response)
      */
-    private Map<String, Object> extractResponseSchema(io.swagger.v3.oas.models.responses.ApiResponses responses) {
+    private void extractResponse(io.swagger.v3.oas.models.responses.ApiResponses responses, SwaggerEndpoint endpoint,
+            SchemaConverter converter) {
         if (responses == null) {
-            return null;
+            return;
         }
 
         // Try to get 200 response
-        ApiResponse response = responses.get("200");
+        String code = "200";
+        ApiResponse response = responses.get(code);
         if (response == null) {
-            response = responses.get("201");
+            code = "201";
+            response = responses.get(code);
         }
         if (response == null && !responses.isEmpty()) {
-            response = responses.values().iterator().next();
+            Map.Entry<String, ApiResponse> first = responses.entrySet().iterator().next();
+            code = first.getKey();
+            response = first.getValue();
         }
+        if (response == null) {
+            return;
+        }
+        endpoint.setResponseStatus(code.matches("\\d{3}") ? Integer.parseInt(code) : 200);
 
-        if (response != null && response.getContent() != null) {
+        if (response.getContent() != null) {
             Content content = response.getContent();
 
             MediaType mediaType = content.get("application/json");
@@ -160,67 +328,175 @@ public class SwaggerParser {
                 mediaType = content.values().iterator().next();
             }
 
-            if (mediaType != null && mediaType.getSchema() != null) {
-                return schemaToMap(mediaType.getSchema());
+            if (mediaType != null) {
+                if (mediaType.getSchema() != null) {
+                    endpoint.setResponseSchema(converter.convertRoot(mediaType.getSchema()));
+                }
+                if (mediaType.getExample() != null) {
+                    endpoint.setResponseExample(mediaType.getExample());
+                } else if (mediaType.getExamples() != null && !mediaType.getExamples().isEmpty()) {
+                    endpoint.setResponseExample(mediaType.getExamples().values().iterator().next().getValue());
+                }
             }
         }
-
-        return null;
     }
 
     /**
-     * Convert Schema to Map
+     * Converts the schemas of one document, memoizing component schemas by name
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    private Map<String, Object> schemaToMap(Schema schema) {
-        if (schema == null) {
-            return null;
+    private final class SchemaConverter {
+        private final Map<String, Schema> components;
+        // Components whose conversion did not depend on where they were referenced from
+        private final Map<String, Map<String, Object>> converted = new HashMap<>();
+        // Schemas in each converted component once expanded, charged again wherever it is shared
+        private final Map<String, Integer> sizes = new HashMap<>();
+        // How often each component is on the current reference path
+        private final Map<String, Integer> active = new HashMap<>();
+        private int cuts;
+        // Schemas expanded so far for the current request or response schema
+        private int nodes;
+
+        private SchemaConverter(Map<String, Schema> components) {
+            this.components = components != null ? components : Map.of();
         }
 
-        Map<String, Object> result = new LinkedHashMap<>();
-
-        // Type
-        if (schema.getType() != null) {
-            result.put("type", schema.getType());
+        /**
+         * Convert a request or response schema, which gets a fresh node budget
+         */
+        private Map<String, Object> convertRoot(Schema<?> schema) {
+            nodes = 0;
+            return convert(schema);
         }
 
-        // Format
-        if (schema.getFormat() != null) {
-            result.put("format", schema.getFormat());
-        }
+        /**
+         * Convert Schema to Map
+         */
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private Map<String, Object> convert(Schema schema) {
+            if (schema == null) {
+                return null;
+            }
+            if (schema.get$ref() != null) {
+                return convertRef(schema.get$ref());
+            }
 
-        // Enum
-        if (schema.getEnum() != null) {
-            result.put("enum", schema.getEnum());
-        }
+            nodes++;
+            Map<String, Object> result = new LinkedHashMap<>();
 
-        // Min/Max
-        if (schema.getMinimum() != null) {
-            result.put("minimum", schema.getMinimum());
-        }
-        if (schema.getMaximum() != null) {
-            result.put("maximum", schema.getMaximum());
-        }
+            // Type
+            if (schema.getType() != null) {
+                result.put("type", schema.getType());
+            }
 
-        // Properties (for object type)
-        if (schema.getProperties() != null) {
-            Map<String, Object> properties = new LinkedHashMap<>();
-            schema.getProperties().forEach((name, propSchema) -> {
-                properties.put((String) name, schemaToMap((Schema) propSchema));
-            });
-            result.put("properties", properties);
-        }
+            // Format
+            if (schema.getFormat() != null) {
+                result.put("format", schema.getFormat());
+            }
+
+            // Enum
+            if (schema.getEnum() != null) {
+                result.put("enum", schema.getEnum());
+            }
+
+            // Min/Max
+            if (schema.getMinimum() != null) {
+                result.put("minimum", schema.getMinimum());
+            }
+            if (schema.getMaximum() != null) {
+                result.put("maximum", schema.getMaximum());
+            }
+            if (schema.getMinItems() != null) {
+                result.put("minItems", schema.getMinItems());
+            }
+            if (schema.getMaxItems() != null) {
+                result.put("maxItems", schema.getMaxItems());
+            }
+
+            // Properties (for object type)
+            if (schema.getProperties() != null) {
+                Map<String, Object> properties = new LinkedHashMap<>();
+                schema.getProperties().forEach((name, propSchema) -> {
+                    properties.put((String) name, convert((Schema) propSchema));
+                });
+                result.put("properties", properties);
+            }
+
+            // Items (for array type)
+            if (schema.getItems() != null) {
+                Map<String, Object> items = convert(schema.getItems());
+                result.put("items", items);
+                if (items != null && items.containsKey(CYCLE_MARKER)) {
+                    // The recursion ends here: an empty list rather than a list of nulls
+                    result.put("minItems", 0);
+                    result.put("maxItems", 0);
+                }
+            }
+
+            // Example
+            if (schema.getExample() != null) {
+                result.put("example", schema.getExample());
+            }
 
-        // Items (for array type)
-        if (schema.getItems() != null) {
-            result.put("items", schemaToMap(schema.getItems()));
+            return result;
         }
 
-        // Example
-        if (schema.getExample() != null) {
-            result.put("example", schema.getExample());
+        private Map<String, Object> convertRef(String ref) {
+            String name = ref.startsWith(COMPONENT_PREFIX) ? ref.substring(COMPONENT_PREFIX.length()) : null;
+            Schema<?> target = name != null ? components.get(name) : null;
+            if (target == null) {
+                log.warn("Unresolved schema reference {}", ref);
+                return Map.of("type", "object");
+            }
+
+            // Shared maps are expanded again wherever they are serialized, so they count in full
+            Map<String, Object> shared = converted.get(name);
+            if (shared != null && nodes + sizes.get(name) <= maxSchemaNodes) {
+                nodes += sizes.get(name);
+                return shared;
+            }
+            int depth = active.getOrDefault(name, 0);
+            // Each component may be within its depth while a mesh of them still grows exponentially
+            if (shared != null || depth >= maxRefDepth || nodes >= maxSchemaNodes) {
+                cuts++;
+                return Map.of("type", "null", CYCLE_MARKER, name);
+            }
+
+            active.put(name, depth + 1);
+            int cutsBefore = cuts;
+            int nodesBefore = nodes;
+            try {
+                Map<String, Object> result = convert(target);
+                if (cuts == cutsBefore) {
+                    // Acyclic and complete below this point, so every reference can share the same map
+                    result = Collections.unmodifiableMap(result);
+                    converted.put(name, result);
+                    sizes.put(name, nodes - nodesBefore);
+                }
+                return result;
+            } finally {
+                if (depth == 0) {
+                    active.remove(name);
+                } else {
+                    active.put(name, depth);
+                }
+            }
         }
+    }
 
-        return result;
+    /**
+     * A parsed document and the validators to check whether its source changed
+     */
+    private static final class CachedSpec {
+        private final String etag;
+        private final String lastModified; // Last-Modified header, or file mtime and size
+        private final String digest; // MD5 of the fetched document
+        private final List<SwaggerEndpoint> endpoints;
+
+        private CachedSpec(String etag, String lastModified, String digest, List<SwaggerEndpoint> endpoints) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.digest = digest;
+            this.endpoints = endpoints;
+        }
     }
 }
@@ -0,0 +1,246 @@
+package com.mock.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mock.dto.SwaggerEndpoint;
+import com.mock.dto.SwaggerImportResult;
+import com.mock.dto.SwaggerServiceImport;
+import com.mock.model.MockRule;
+import com.mock.model.MockServiceConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a whole Swagger/OpenAPI spec into a mock service in one call: one rule per operation,
+ * path templates converted to Ant patterns, bodies from the spec's examples or generated from the
+ * response schemas. Bodies are generated in parallel; the service is saved with a single update.
+ */
+@Slf4j
+@Service
+public class SwaggerServiceImporter {
+
+    // {id} and {id}.json style path parameters; each becomes a single-segment wildcard
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{[^/}]+\\}");
+
+    private final SwaggerParser swaggerParser;
+    private final MockDataGenerator generator;
+    private final MockConfigService configService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bodyWriter;
+    private final ExecutorService pool;
+
+    public SwaggerServiceImporter(SwaggerParser swaggerParser, MockDataGenerator generator,
+            MockConfigService configService, ObjectMapper objectMapper) {
+        this.swaggerParser = swaggerParser;
+        this.generator = generator;
+        this.configService = configService;
+        this.objectMapper = objectMapper;
+        // Same layout the rule editor shows
+        this.bodyWriter = objectMapper.writerWithDefaultPrettyPrinter();
+
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "swagger-import-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public SwaggerImportResult importService(SwaggerServiceImport request) {
+        MockServiceConfig existing = validate(request);
+        long start = System.nanoTime();
+
+        List<SwaggerEndpoint> endpoints = StringUtils.hasText(request.getContent())
+                ? swaggerParser.parseSwaggerContent(request.getContent())
+                : swaggerParser.parseSwaggerUrl(request.getSwaggerUrl());
+        endpoints = select(endpoints, request.getOperations());
+
+        AtomicInteger fromExamples = new AtomicInteger();
+        List<MockRule> rules = buildRules(endpoints, request, fromExamples);
+
+        MockServiceConfig config;
+        if (existing != null) {
+            // Work on a copy so a rule that fails to compile leaves the stored service untouched
+            config = objectMapper.convertValue(existing, MockServiceConfig.class);
+            List<MockRule> merged = new ArrayList<>(config.getRules() != null ? config.getRules() : List.of());
+            merged.addAll(rules);
+            config.setRules(merged);
+            config = configService.updateService(config);
+        } else {
+            config = new MockServiceConfig();
+            config.setServiceName(request.getServiceName());
+            config.setPort(request.getPort());
+            config.setContextPath(request.getContextPath());
+            config.setDescription(request.getDescription());
+            config.setRules(rules);
+            config = configService.createService(config);
+        }
+
+        SwaggerImportResult result = new SwaggerImportResult();
+        if (request.isStart() && !config.isRunning()) {
+            try {
+                configService.startService(config.getId());
+            } catch (RuntimeException e) {
+                log.warn("Imported service {} but could not start it: {}", config.getServiceName(), e.getMessage());
+                result.setMessage(e.getMessage());
+            }
+        }
+
+        result.setService(config);
+        result.setOperations(rules.size());
+        result.setFromExamples(fromExamples.get());
+        result.setDurationMs((System.nanoTime() - start) / 1_000_000);
+        log.info("Imported {} operations into service {} in {} ms", rules.size(), config.getServiceName(),
+                result.getDurationMs());
+        return result;
+    }
+
+    private MockServiceConfig validate(SwaggerServiceImport request) {
+        if (!StringUtils.hasText(request.getContent()) && !StringUtils.hasText(request.getSwaggerUrl())) {
+            throw new IllegalArgumentException("Either swaggerUrl or content is required");
+        }
+        String mode = request.getResponseMode();
+        if (mode != null && !"static".equalsIgnoreCase(mode) && !"generate".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("responseMode must be 'static' or 'generate'");
+        }
+        if (request.getServiceId() != null) {
+            MockServiceConfig existing = configService.getService(request.getServiceId());
+            if (existing == null) {
+                throw new IllegalArgumentException("Unknown service " + request.getServiceId());
+            }
+            return existing;
+        }
+        if (!StringUtils.hasText(request.getServiceName())) {
+            throw new IllegalArgumentException("serviceName is required for a new service");
+        }
+        if (request.getPort() < 1 || request.getPort() > 65535) {
+            throw new IllegalArgumentException("port must be between 1 and 65535");
+        }
+        return null;
+    }
+
+    private static List<SwaggerEndpoint> select(List<SwaggerEndpoint> endpoints, List<String> operations) {
+        if (operations == null || operations.isEmpty()) {
+            return endpoints;
+        }
+        Set<String> wanted = new HashSet<>();
+        for (String operation : operations) {
+            wanted.add(operation.trim().toUpperCase(Locale.ROOT).replaceFirst("\\s+", " "));
+        }
+        List<SwaggerEndpoint> selected = new ArrayList<>();
+        for (SwaggerEndpoint endpoint : endpoints) {
+            if (wanted.contains((endpoint.getMethod() + " " + endpoint.getPath()).toUpperCase(Locale.ROOT))) {
+                selected.add(endpoint);
+            }
+        }
+        return selected;
+    }
+
+    private List<MockRule> buildRules(List<SwaggerEndpoint> endpoints, SwaggerServiceImport request,
+            AtomicInteger fromExamples) {
+        List<Future<MockRule>> futures = new ArrayList<>(endpoints.size());
+        for (int i = 0; i < endpoints.size(); i++) {
+            SwaggerEndpoint endpoint = endpoints.get(i);
+            // Each operation gets its own seed so seeded imports are reproducible but not all alike
+            Long seed = request.getSeed() != null ? request.getSeed() + i : null;
+            futures.add(pool.submit(() -> toRule(endpoint, request, seed, fromExamples)));
+        }
+
+        List<MockRule> rules = new ArrayList<>(futures.size());
+        try {
+            for (Future<MockRule> future : futures) {
+                rules.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        }
+
+        // Rules match in order, so /users/me has to come before /users/*; the sort is stable
+        rules.sort(Comparator.comparingInt(rule -> wildcards(rule.getUrlPattern())));
+        return rules;
+    }
+
+    private MockRule toRule(SwaggerEndpoint endpoint, SwaggerServiceImport request, Long seed,
+            AtomicInteger fromExamples) {
+        MockRule rule = new MockRule();
+        rule.setMethod(endpoint.getMethod());
+        rule.setUrlPattern(antPattern(request.getBasePath(), endpoint.getPath()));
+        rule.setResponseStatus(endpoint.getResponseStatus() != null ? endpoint.getResponseStatus() : 200);
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "application/json");
+        rule.setResponseHeaders(headers);
+
+        Object example = endpoint.getResponseExample();
+        Map<String, Object> schema = endpoint.getResponseSchema();
+        if (example != null) {
+            fromExamples.incrementAndGet();
+            rule.setResponseBody(example instanceof String ? (String) example : write(example));
+        } else if ("generate".equalsIgnoreCase(request.getResponseMode())) {
+            rule.setMode("generate");
+            rule.setResponseSchema(schema != null ? schema : Map.of());
+            rule.setGenerateVariants(request.getGenerateVariants());
+            rule.setGenerateSeed(seed);
+        } else {
+            // Schemas shared between operations hit the generator's plan cache
+            rule.setResponseBody(write(generator.generateFromSchema(schema, seed)));
+        }
+        return rule;
+    }
+
+    private String write(Object value) {
+        try {
+            return bodyWriter.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String antPattern(String basePath, String path) {
+        String pattern = PATH_VARIABLE.matcher(path).replaceAll("*");
+        if (StringUtils.hasText(basePath) && !"/".equals(basePath)) {
+            String base = basePath.startsWith("/") ? basePath : "/" + basePath;
+            pattern = (base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + pattern;
+        }
+        return pattern;
+    }
+
+    private static int wildcards(String pattern) {
+        int count = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == '*') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,103 @@
+package com.mock.service;
+
+import com.github.javafaker.Faker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Pre-generated Faker values per semantic kind (first names, emails, cities, ...).
+ * <p>
+ * Faker resolves every value through YAML lookups and regex expansion, which dominates the cost
+ * of generating large payloads. Each pool is filled once, lazily or at startup, and then sampled
+ * by index. Pools are filled from a fixed seed per kind, so their contents do not depend on fill
+ * order and seeded generation gives the same output on every run.
+ */
+@Slf4j
+@Component
+public class ValuePools {
+
+    private static final long POOL_SEED = 0x6d6f636b; // "mock"
+
+    public enum Kind {
+        FIRST_NAME(f -> f.name().firstName()),
+        LAST_NAME(f -> f.name().lastName()),
+        FULL_NAME(f -> f.name().fullName()),
+        USERNAME(f -> f.name().username()),
+        COMPANY(f -> f.company().name()),
+        EMAIL(f -> f.internet().emailAddress()),
+        PHONE(f -> f.phoneNumber().phoneNumber()),
+        ADDRESS(f -> f.address().fullAddress()),
+        CITY(f -> f.address().city()),
+        COUNTRY(f -> f.address().country()),
+        STREET(f -> f.address().streetAddress()),
+        ZIP(f -> f.address().zipCode()),
+        URL(f -> f.internet().url()),
+        SENTENCE(f -> f.lorem().sentence()),
+        SHORT_SENTENCE(f -> f.lorem().sentence(5)),
+        TITLE(f -> f.book().title());
+
+        private final Function<Faker, String> source;
+
+        Kind(Function<Faker, String> source) {
+            this.source = source;
+        }
+    }
+
+    private final int poolSize;
+    private final AtomicReferenceArray<String[]> pools = new AtomicReferenceArray<>(Kind.values().length);
+
+    public ValuePools(@Value("${mock.generator.pool-size:1024}") int poolSize,
+            @Value("${mock.generator.preload-pools:false}") boolean preload) {
+        this.poolSize = Math.max(1, poolSize);
+        if (preload) {
+            long start = System.nanoTime();
+            for (Kind kind : Kind.values()) {
+                pool(kind);
+            }
+            log.info("Filled {} value pools of {} entries in {} ms", Kind.values().length, this.poolSize,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Sample one value of the given kind
+     */
+    public String sample(Kind kind, Random random) {
+        String[] pool = pool(kind);
+        return pool[random.nextInt(pool.length)];
+    }
+
+    /**
+     * The values of one kind, filled on first use
+     */
+    String[] pool(Kind kind) {
+        String[] pool = pools.get(kind.ordinal());
+        if (pool == null) {
+            synchronized (this) {
+                pool = pools.get(kind.ordinal());
+                if (pool == null) {
+                    pool = fill(kind);
+                    pools.set(kind.ordinal(), pool);
+                }
+            }
+        }
+        return pool;
+    }
+
+    private String[] fill(Kind kind) {
+        Faker faker = new Faker(new Random(POOL_SEED + kind.ordinal()));
+        // Small vocabularies (e.g. countries) repeat quickly; keep each distinct value once
+        Set<String> values = new LinkedHashSet<>();
+        for (int i = 0; i < poolSize * 2 && values.size() < poolSize; i++) {
+            values.add(kind.source.apply(faker));
+        }
+        return values.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,28 @@
+package com.mock.web;
+
+import com.mock.core.CaptureStore;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/services/{id}/captures")
+public class CaptureController {
+
+    private final CaptureStore captureStore;
+
+    public CaptureController(CaptureStore captureStore) {
+        this.captureStore = captureStore;
+    }
+
+    @GetMapping
+    public Map<String, Object> stats(@PathVariable String id) {
+        return captureStore.stats(id);
+    }
+
+    @DeleteMapping
+    public void clear(@PathVariable String id) throws IOException {
+        captureStore.clear(id);
+    }
+}
@@ -1,5 +1,6 @@
 package com.mock.web;
 
+import com.mock.dto.BatchResult;
 import com.mock.model.MockServiceConfig;
 import com.mock.service.MockConfigService;
 import org.springframework.web.bind.annotation.*;
@@ -52,14 +53,18 @@ public class ConfigController {
         return configService.getAllServices();
     }
 
-    @PostMapping("/import")
-    public void importConfigs(@RequestBody List<MockServiceConfig> configs) {
-        for (MockServiceConfig config : configs) {
-            if (config.getId() != null) {
-                configService.updateService(config);
-            } else {
-                configService.createService(config);
-            }
-        }
+    @PostMapping({ "/import", "/batch/import" })
+    public List<BatchResult> importConfigs(@RequestBody List<MockServiceConfig> configs) {
+        return configService.importServices(configs);
+    }
+
+    @PostMapping("/batch/start")
+    public List<BatchResult> startAll(@RequestBody(required = false) List<String> ids) {
+        return configService.startServices(ids);
+    }
+
+    @PostMapping("/batch/stop")
+    public List<BatchResult> stopAll(@RequestBody(required = false) List<String> ids) {
+        return configService.stopServices(ids);
     }
 }
@@ -0,0 +1,50 @@
+package com.mock.web;
+
+import com.mock.dto.LoadTestRequest;
+import com.mock.service.LoadGenerator;
+import com.mock.service.LoadTestRun;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/loadtests")
+public class LoadTestController {
+
+    private final LoadGenerator loadGenerator;
+
+    public LoadTestController(LoadGenerator loadGenerator) {
+        this.loadGenerator = loadGenerator;
+    }
+
+    @PostMapping
+    public Map<String, Object> start(@RequestBody LoadTestRequest request) {
+        try {
+            return loadGenerator.start(request).report();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> list() {
+        return loadGenerator.list().stream().map(LoadTestRun::report).toList();
+    }
+
+    @GetMapping("/{id}")
+    public Map<String, Object> get(@PathVariable String id) {
+        LoadTestRun run = loadGenerator.get(id);
+        if (run == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown load test " + id);
+        }
+        return run.report();
+    }
+
+    @DeleteMapping("/{id}")
+    public void stop(@PathVariable String id) {
+        loadGenerator.stop(id);
+    }
+}
@@ -0,0 +1,135 @@
+package com.mock.web;
+
+import com.mock.core.LatencyHistogram;
+import com.mock.core.MetricsRegistry;
+import com.mock.core.RuleMetrics;
+import com.mock.core.ServiceMetrics;
+import com.mock.model.MockServiceConfig;
+import com.mock.service.MockConfigService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@RestController
+public class MetricsController {
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private final MetricsRegistry metricsRegistry;
+    private final MockConfigService configService;
+
+    public MetricsController(MetricsRegistry metricsRegistry, MockConfigService configService) {
+        this.metricsRegistry = metricsRegistry;
+        this.configService = configService;
+    }
+
+    @GetMapping("/api/services/{id}/metrics")
+    public Map<String, Object> serviceMetrics(@PathVariable String id) {
+        ServiceMetrics metrics = metricsRegistry.find(id);
+        if (metrics == null) {
+            metrics = new ServiceMetrics(id);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("serviceId", id);
+        result.put("requests", metrics.getRequests().sum());
+        result.put("unmatched", metrics.getUnmatched().sum());
+        result.put("statuses", counts(metrics.getStatuses()));
+        result.put("match", metrics.getMatch().summary());
+        result.put("total", metrics.getTotal().summary());
+
+        // Hottest rules first
+        List<RuleMetrics> rules = new ArrayList<>(metrics.allRules());
+        rules.sort(Comparator.comparingLong((RuleMetrics r) -> r.getHits().sum()).reversed());
+        List<Map<String, Object>> ruleStats = new ArrayList<>();
+        for (RuleMetrics rule : rules) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("rule", rule.getKey());
+            entry.put("method", rule.getMethod());
+            entry.put("urlPattern", rule.getUrlPattern());
+            entry.put("hits", rule.getHits().sum());
+            entry.put("statuses", counts(rule.getStatuses()));
+            entry.put("total", rule.getTotal().summary());
+            entry.put("template", rule.getTemplate().summary());
+            entry.put("delay", rule.getDelay().summary());
+            entry.put("forward", rule.getForward().summary());
+            ruleStats.add(entry);
+        }
+        result.put("rules", ruleStats);
+        return result;
+    }
+
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String prometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# TYPE mock_requests_total counter\n");
+        out.append("# TYPE mock_unmatched_total counter\n");
+        out.append("# TYPE mock_responses_total counter\n");
+        out.append("# TYPE mock_rule_hits_total counter\n");
+        out.append("# TYPE mock_rule_responses_total counter\n");
+        out.append("# TYPE mock_match_seconds summary\n");
+        out.append("# TYPE mock_request_seconds summary\n");
+        out.append("# TYPE mock_rule_phase_seconds summary\n");
+
+        for (ServiceMetrics metrics : metricsRegistry.all()) {
+            MockServiceConfig config = configService.getService(metrics.getServiceId());
+            String service = "service=\"" + escape(metrics.getServiceId()) + "\",name=\""
+                    + escape(config != null ? config.getServiceName() : "") + "\"";
+
+            sample(out, "mock_requests_total", service, metrics.getRequests().sum());
+            sample(out, "mock_unmatched_total", service, metrics.getUnmatched().sum());
+            for (Map.Entry<Integer, Long> status : counts(metrics.getStatuses()).entrySet()) {
+                sample(out, "mock_responses_total", service + ",status=\"" + status.getKey() + "\"",
+                        status.getValue());
+            }
+            summary(out, "mock_match_seconds", service, metrics.getMatch());
+            summary(out, "mock_request_seconds", service, metrics.getTotal());
+
+            for (RuleMetrics rule : metrics.allRules()) {
+                String labels = service + ",rule=\"" + escape(rule.getKey()) + "\"";
+                sample(out, "mock_rule_hits_total", labels, rule.getHits().sum());
+                for (Map.Entry<Integer, Long> status : counts(rule.getStatuses()).entrySet()) {
+                    sample(out, "mock_rule_responses_total", labels + ",status=\"" + status.getKey() + "\"",
+                            status.getValue());
+                }
+                summary(out, "mock_rule_phase_seconds", labels + ",phase=\"total\"", rule.getTotal());
+                summary(out, "mock_rule_phase_seconds", labels + ",phase=\"template\"", rule.getTemplate());
+                summary(out, "mock_rule_phase_seconds", labels + ",phase=\"delay\"", rule.getDelay());
+                summary(out, "mock_rule_phase_seconds", labels + ",phase=\"forward\"", rule.getForward());
+            }
+        }
+        return out.toString();
+    }
+
+    private static Map<Integer, Long> counts(Map<Integer, LongAdder> statuses) {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, counter) -> counts.put(status, counter.sum()));
+        return counts;
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.percentileMicros(quantile) / 1e6).append('\n');
+        }
+        out.append(name).append("_sum{").append(labels).append("} ").append(histogram.getSumMicros() / 1e6)
+                .append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,59 @@
+package com.mock.web;
+
+import com.mock.core.JournalEntry;
+import com.mock.core.RequestJournal;
+import com.mock.core.RequestJournals;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+@RestController
+@RequestMapping("/api/services/{id}/requests")
+public class RequestJournalController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final RequestJournals journals;
+
+    public RequestJournalController(RequestJournals journals) {
+        this.journals = journals;
+    }
+
+    /**
+     * Most recent requests first; {@code afterSeq} returns only entries newer than a previous poll
+     */
+    @GetMapping
+    public List<JournalEntry> list(@PathVariable String id,
+            @RequestParam(required = false) String method,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String rule,
+            @RequestParam(required = false) String uri,
+            @RequestParam(required = false) Boolean unmatched,
+            @RequestParam(defaultValue = "-1") long afterSeq,
+            @RequestParam(defaultValue = "100") int limit) {
+        RequestJournal journal = journals.find(id);
+        if (journal == null) {
+            return Collections.emptyList();
+        }
+
+        Predicate<JournalEntry> filter = entry -> true;
+        if (method != null && !method.isEmpty()) {
+            filter = filter.and(entry -> method.equalsIgnoreCase(entry.getMethod()));
+        }
+        if (status != null) {
+            filter = filter.and(entry -> entry.getStatus() == status);
+        }
+        if (rule != null && !rule.isEmpty()) {
+            filter = filter.and(entry -> rule.equals(entry.getRule()));
+        }
+        if (uri != null && !uri.isEmpty()) {
+            filter = filter.and(entry -> entry.getUri().contains(uri));
+        }
+        if (unmatched != null) {
+            filter = filter.and(entry -> (entry.getRule() == null) == unmatched);
+        }
+        return journal.query(filter, afterSeq, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
@@ -0,0 +1,58 @@
+package com.mock.web;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mock.core.ResourceStore;
+import com.mock.core.ResourceStores;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contents of a service's resource-mode collections: statistics, snapshots to save them and
+ * restore them later, and a reset
+ */
+@RestController
+@RequestMapping("/api/services/{id}/resources")
+public class ResourceController {
+
+    private final ResourceStores stores;
+
+    public ResourceController(ResourceStores stores) {
+        this.stores = stores;
+    }
+
+    @GetMapping
+    public Map<String, Object> stats(@PathVariable String id) {
+        ResourceStore store = stores.find(id);
+        return store != null ? store.stats() : Collections.emptyMap();
+    }
+
+    /**
+     * Every collection's items in write order, in the shape {@link #restore} accepts
+     */
+    @GetMapping("/snapshot")
+    public Map<String, List<ObjectNode>> snapshot(@PathVariable String id) {
+        ResourceStore store = stores.find(id);
+        return store != null ? store.snapshot() : Collections.emptyMap();
+    }
+
+    /**
+     * Replace the contents of the collections in the snapshot; other collections are left alone
+     */
+    @PutMapping("/snapshot")
+    public Map<String, Object> restore(@PathVariable String id, @RequestBody Map<String, List<ObjectNode>> snapshot) {
+        ResourceStore store = stores.forService(id);
+        store.restore(snapshot);
+        return store.stats();
+    }
+
+    @DeleteMapping
+    public void clear(@PathVariable String id) {
+        ResourceStore store = stores.find(id);
+        if (store != null) {
+            store.clear();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mock.web;
+
+import com.mock.core.CompiledRule;
+import com.mock.core.DynamicServerManager;
+import com.mock.core.RuleSnapshot;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/services/{id}/cache")
+public class ResponseCacheController {
+
+    private final DynamicServerManager serverManager;
+
+    public ResponseCacheController(DynamicServerManager serverManager) {
+        this.serverManager = serverManager;
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> stats(@PathVariable String id) {
+        RuleSnapshot snapshot = serverManager.currentSnapshot(id);
+        if (snapshot == null) {
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (CompiledRule compiled : snapshot.getRules()) {
+            if (compiled.getCache() == null) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("ruleId", compiled.getRule().getId());
+            entry.put("method", compiled.getRule().getMethod());
+            entry.put("urlPattern", compiled.getRule().getUrlPattern());
+            entry.putAll(compiled.getCache().stats());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    @DeleteMapping
+    public void clear(@PathVariable String id) {
+        RuleSnapshot snapshot = serverManager.currentSnapshot(id);
+        if (snapshot == null) {
+            return;
+        }
+        for (CompiledRule compiled : snapshot.getRules()) {
+            if (compiled.getCache() != null) {
+                compiled.getCache().clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.mock.core;
+
+import com.mock.model.MockServiceConfig;
+import com.mock.service.SettingsService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the registrar against a local stand-in for Eureka's REST API
+ */
+class EurekaRegistrarTest {
+
+    private HttpServer eureka;
+    // "METHOD path" of every request the stand-in received, in order
+    private final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+    // Scripted statuses per method; 204 once a queue is empty
+    private final Map<String, Queue<Integer>> statuses = new ConcurrentHashMap<>();
+    // When set, registrations are held until it opens; answeredRegistrations counts the ones let through
+    private volatile CountDownLatch registerGate;
+    private final AtomicInteger answeredRegistrations = new AtomicInteger();
+    private EurekaRegistrar registrar;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        eureka = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        eureka.createContext("/eureka/", exchange -> {
+            String method = exchange.getRequestMethod();
+            exchange.getRequestBody().readAllBytes();
+            CountDownLatch gate = registerGate;
+            if ("POST".equals(method) && gate != null) {
+                await(gate);
+            }
+            requests.add(method + " " + exchange.getRequestURI().getPath());
+            if ("POST".equals(method)) {
+                answeredRegistrations.incrementAndGet();
+            }
+            Integer status = statuses.getOrDefault(method, new ConcurrentLinkedQueue<>()).poll();
+            exchange.sendResponseHeaders(status != null ? status : 204, -1);
+            exchange.close();
+        });
+        eureka.start();
+
+        SettingsService settings = new SettingsService();
+        settings.getSettings().setEurekaUrl("http://127.0.0.1:" + eureka.getAddress().getPort() + "/eureka/");
+        settings.getSettings().setHeartbeatIntervalSeconds(1);
+        registrar = new EurekaRegistrar(settings);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registrar.shutdown();
+        eureka.stop(0);
+    }
+
+    @Test
+    void registersWithoutBlockingTheCaller() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        registerGate = gate;
+
+        // A blocking register could only return once the stand-in answered, which waits for the gate
+        registrar.register(service("s1", "orders", 9001));
+        assertThat(answeredRegistrations.get()).isZero();
+
+        gate.countDown();
+        assertThat(next()).isEqualTo("POST /eureka/apps/ORDERS");
+        awaitRegistered(1);
+    }
+
+    @Test
+    void renewsEveryLeaseFromOneScheduler() throws Exception {
+        registrar.register(service("s1", "orders", 9001));
+        registrar.register(service("s2", "billing", 9002));
+        awaitRegistered(2);
+
+        boolean orders = false;
+        boolean billing = false;
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!(orders && billing) && System.currentTimeMillis() < deadline) {
+            String request = requests.poll(100, TimeUnit.MILLISECONDS);
+            if (request != null && request.startsWith("PUT ")) {
+                orders |= request.contains("/apps/ORDERS/") && request.endsWith(":ORDERS:9001");
+                billing |= request.contains("/apps/BILLING/") && request.endsWith(":BILLING:9002");
+            }
+        }
+        assertThat(orders).as("heartbeat for ORDERS").isTrue();
+        assertThat(billing).as("heartbeat for BILLING").isTrue();
+        assertThat(Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("eureka-")).count()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void registersAgainWhenEurekaForgetsTheLease() throws Exception {
+        statuses.put("PUT", new ConcurrentLinkedQueue<>(List.of(404)));
+        registrar.register(service("s1", "orders", 9001));
+
+        assertThat(next()).isEqualTo("POST /eureka/apps/ORDERS");
+        assertThat(nextMatching("PUT ")).endsWith(":ORDERS:9001");
+        assertThat(nextMatching("POST ")).isEqualTo("POST /eureka/apps/ORDERS");
+        assertThat(nextMatching("PUT ")).endsWith(":ORDERS:9001");
+    }
+
+    @Test
+    void retriesFailedRegistrationWithBackoff() throws Exception {
+        statuses.put("POST", new ConcurrentLinkedQueue<>(List.of(500, 503)));
+        registrar.register(service("s1", "orders", 9001));
+
+        assertThat(next()).isEqualTo("POST /eureka/apps/ORDERS");
+        long first = System.nanoTime();
+        assertThat(next()).isEqualTo("POST /eureka/apps/ORDERS");
+        long second = System.nanoTime();
+        assertThat(next()).isEqualTo("POST /eureka/apps/ORDERS");
+        long third = System.nanoTime();
+
+        // 1s after the first failure, 2s after the second
+        assertThat(TimeUnit.NANOSECONDS.toMillis(second - first)).isGreaterThanOrEqualTo(900);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(third - second)).isGreaterThanOrEqualTo(1_900);
+        awaitRegistered(1);
+    }
+
+    @Test
+    void deregisterStopsHeartbeats() throws Exception {
+        MockServiceConfig config = service("s1", "orders", 9001);
+        registrar.register(config);
+        awaitRegistered(1);
+        nextMatching("PUT ");
+
+        registrar.deregister(config);
+        assertThat(nextMatching("DELETE ")).startsWith("DELETE /eureka/apps/ORDERS/").endsWith(":ORDERS:9001");
+        assertThat(registrar.registeredCount()).isZero();
+
+        // Two more heartbeat rounds go by without a renewal
+        long deadline = System.currentTimeMillis() + 2_500;
+        while (System.currentTimeMillis() < deadline) {
+            String request = requests.poll(100, TimeUnit.MILLISECONDS);
+            assertThat(request).as("request after deregistration").isNull();
+        }
+    }
+
+    private String next() throws InterruptedException {
+        String request = requests.poll(5, TimeUnit.SECONDS);
+        assertThat(request).as("request to Eureka").isNotNull();
+        return request;
+    }
+
+    private String nextMatching(String prefix) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            String request = requests.poll(100, TimeUnit.MILLISECONDS);
+            if (request != null && request.startsWith(prefix)) {
+                return request;
+            }
+        }
+        throw new AssertionError("No " + prefix.trim() + " request within 5s");
+    }
+
+    private void awaitRegistered(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (registrar.registeredCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(registrar.registeredCount()).isEqualTo(count);
+    }
+
+    private static MockServiceConfig service(String id, String name, int port) {
+        MockServiceConfig config = new MockServiceConfig();
+        config.setId(id);
+        config.setServiceName(name);
+        config.setPort(port);
+        return config;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            // Bounded so a blocking register fails the assertion instead of hanging the test
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
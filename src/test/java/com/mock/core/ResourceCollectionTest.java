@@ -0,0 +1,63 @@
+package com.mock.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceCollectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void indexKeepsItemsAddedWhileAnotherItemWithTheSameValueIsRemoved() throws Exception {
+        ResourceCollection collection = new ResourceCollection("/books",
+                new ResourceCollection.Config("id", Set.of("genre"), 1_000_000, Long.MAX_VALUE));
+        int rounds = 100_000;
+        // Each round one thread adds an item with a fresh value while the other adds and removes
+        // one with the same value, emptying its id set just as the first add may land in it
+        CyclicBarrier round = new CyclicBarrier(2);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> keeper = pool.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    round.await();
+                    put(collection, "kept-" + i, "genre-" + i);
+                }
+                return null;
+            });
+            Future<?> churner = pool.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    round.await();
+                    put(collection, "gone-" + i, "genre-" + i);
+                    collection.remove("gone-" + i);
+                }
+                return null;
+            });
+            keeper.get();
+            churner.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(collection.size()).isEqualTo(rounds);
+        for (int i = 0; i < rounds; i++) {
+            assertThat(collection.query(Map.of("genre", "genre-" + i), 0, 1).getTotal())
+                    .as("items indexed under genre-" + i).isEqualTo(1);
+        }
+    }
+
+    private void put(ResourceCollection collection, String id, String genre) throws Exception {
+        ObjectNode node = objectMapper.createObjectNode().put("id", id).put("genre", genre);
+        collection.put(id, node, objectMapper.writeValueAsBytes(node));
+    }
+}